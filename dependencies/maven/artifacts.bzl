@@ -23,5 +23,7 @@ artifacts = [
     "junit:junit",
     "org.antlr:antlr4-runtime",
     "org.hamcrest:hamcrest-library",
+    "org.openjdk.jmh:jmh-core",
+    "org.openjdk.jmh:jmh-generator-annprocess",
     "org.slf4j:slf4j-api"
 ]
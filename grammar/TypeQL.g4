@@ -188,7 +188,8 @@ type_native           :   THING           |   ENTITY          |   ATTRIBUTE
 value_type            :   LONG            |   DOUBLE          |   STRING
                       |   BOOLEAN         |   DATETIME        ;
 value                 :   STRING_         |   LONG_           |   DOUBLE_
-                      |   BOOLEAN_        |   DATE_           |   DATETIME_     ;
+                      |   BOOLEAN_        |   DATE_           |   DATETIME_
+                      |   PARAM_                                                ;       // placeholder bound by a prepared query
 regex                 :   STRING_         ;
 
 // UNRESERVED KEYWORDS =========================================================
@@ -277,6 +278,7 @@ DATETIME_       : DATE_FRAGMENT_ 'T' TIME_              ;
 VAR_            : VAR_ANONYMOUS_ | VAR_NAMED_ ;
 VAR_ANONYMOUS_  : '$_' ;
 VAR_NAMED_      : '$' [a-zA-Z0-9][a-zA-Z0-9_-]* ;
+PARAM_          : '?' [a-zA-Z0-9][a-zA-Z0-9_-]* ;
 IID_            : '0x'[0-9a-f]+ ;
 LABEL_          : TYPE_CHAR_H_ TYPE_CHAR_T_* ;
 LABEL_SCOPED_   : LABEL_ ':' LABEL_ ;
@@ -24,7 +24,13 @@ package com.vaticle.typeql.lang;
 import com.vaticle.typeql.grammar.TypeQLLexer;
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.common.util.Interner;
+import com.vaticle.typeql.lang.parser.ParseInstrumentation;
+import com.vaticle.typeql.lang.parser.ParsedScript;
 import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.parser.PreparedQuery;
+import com.vaticle.typeql.lang.parser.QueryCache;
+import com.vaticle.typeql.lang.parser.ValidationError;
 import com.vaticle.typeql.lang.pattern.Conjunction;
 import com.vaticle.typeql.lang.pattern.Definable;
 import com.vaticle.typeql.lang.pattern.Disjunction;
@@ -32,6 +38,7 @@ import com.vaticle.typeql.lang.pattern.Negation;
 import com.vaticle.typeql.lang.pattern.Pattern;
 import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.schema.Rule;
+import com.vaticle.typeql.lang.pattern.util.ConstraintInterner;
 import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 import com.vaticle.typeql.lang.pattern.variable.TypeVariable;
@@ -41,8 +48,18 @@ import com.vaticle.typeql.lang.query.TypeQLInsert;
 import com.vaticle.typeql.lang.query.TypeQLMatch;
 import com.vaticle.typeql.lang.query.TypeQLQuery;
 import com.vaticle.typeql.lang.query.TypeQLUndefine;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.stream.Stream;
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.EQ;
@@ -58,16 +75,188 @@ import static com.vaticle.typeql.lang.pattern.variable.UnboundVariable.hidden;
 
 public class TypeQL {
 
-    private static final Parser parser = new Parser();
+    private static volatile Parser parser = new Parser();
+    private static volatile QueryCache queryCache = null;
 
+    @SuppressWarnings("unchecked")
     public static <T extends TypeQLQuery> T parseQuery(String queryString) {
-        return parser.parseQueryEOF(queryString);
+        QueryCache cache = queryCache;
+        if (cache == null) return parser.parseQueryEOF(queryString);
+        else return (T) cache.get(queryString, parser::parseQueryEOF);
+    }
+
+    /**
+     * Caches the queries returned by {@link #parseQuery(String)}, keyed by query string. Cached queries are shared
+     * between callers, and must not be modified after they are returned.
+     *
+     * @param maxEntries maximum number of cached queries
+     * @param maxWeight  maximum total length of the cached query strings
+     */
+    public static void enableQueryCache(long maxEntries, long maxWeight) {
+        queryCache = new QueryCache(maxEntries, maxWeight);
+    }
+
+    public static void disableQueryCache() {
+        queryCache = null;
+    }
+
+    public static Optional<QueryCache> queryCache() {
+        return Optional.ofNullable(queryCache);
+    }
+
+    /**
+     * Shares one instance between identical variable names and type labels in the patterns and queries that are
+     * created from then on, including parsed queries, using an intern table with a fixed number of entries.
+     */
+    public static void enableInterning(int capacity) {
+        Interner.enable(capacity);
+    }
+
+    public static void disableInterning() {
+        Interner.disable();
+    }
+
+    /**
+     * Shares one instance between structurally identical constraints that hold no variables, such as labels and
+     * values, and between structurally identical statements in patterns, in the patterns and queries that are
+     * created from then on, including parsed queries, using hash-consing tables with a fixed number of entries.
+     * Statements placed in a pattern are frozen, so their builder methods throw rather than change every query
+     * sharing them.
+     */
+    public static void enableHashConsing(int capacity) {
+        ConstraintInterner.enable(capacity);
+    }
+
+    public static void disableHashConsing() {
+        ConstraintInterner.disable();
+    }
+
+    /**
+     * Reports the metrics of every query parsed through this class to {@code instrumentation}, for example
+     * {@link ParseInstrumentation#flightRecorder()}, or stops reporting them with {@link ParseInstrumentation#NONE}.
+     */
+    public static void instrument(ParseInstrumentation instrumentation) {
+        parser = new Parser(Parser.Options.defaults().instrumentation(instrumentation));
     }
 
     public static <T extends TypeQLQuery> Stream<T> parseQueries(String queryString) {
         return parser.parseQueriesEOF(queryString);
     }
 
+    /**
+     * Lazily parses a script of queries, holding at most one query of the script in memory at a time.
+     * The reader is closed when the returned stream is closed.
+     */
+    public static <T extends TypeQLQuery> Stream<T> parseQueries(Reader reader) {
+        return parser.parseQueriesEOF(reader);
+    }
+
+    /**
+     * Lazily parses a UTF-8 encoded script of queries. The input stream is closed when the returned stream is closed.
+     */
+    public static <T extends TypeQLQuery> Stream<T> parseQueries(InputStream inputStream) {
+        return parseQueries(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lazily parses a UTF-8 encoded script file, reading queries from a memory-mapped view of the file. The file is
+     * closed when the returned stream is closed, so the stream should be used in a try-with-resources statement.
+     */
+    public static <T extends TypeQLQuery> Stream<T> parseQueries(Path path) throws IOException {
+        return parser.parseQueriesEOF(path);
+    }
+
+    /**
+     * Lazily parses a script of queries like {@link #parseQueries(Reader)}, parsing batches of queries concurrently
+     * on {@code executor}. Queries are returned in source order.
+     */
+    public static <T extends TypeQLQuery> Stream<T> parseQueries(Reader reader, Executor executor) {
+        return parser.parseQueriesEOF(reader, executor);
+    }
+
+    /**
+     * Lazily parses a UTF-8 encoded script file like {@link #parseQueries(Path)}, parsing batches of queries
+     * concurrently on {@code executor}. Queries are returned in source order.
+     */
+    public static <T extends TypeQLQuery> Stream<T> parseQueries(Path path, Executor executor) throws IOException {
+        return parser.parseQueriesEOF(path, executor);
+    }
+
+    /**
+     * Parses a query without blocking the calling thread, on {@link Parser#defaultExecutor()}.
+     */
+    public static <T extends TypeQLQuery> CompletableFuture<T> parseQueryAsync(String queryString) {
+        return parser.parseQueryEOFAsync(queryString);
+    }
+
+    /**
+     * Parses a query without blocking the calling thread, on {@code executor}.
+     */
+    public static <T extends TypeQLQuery> CompletableFuture<T> parseQueryAsync(String queryString, Executor executor) {
+        return parser.parseQueryEOFAsync(queryString, executor);
+    }
+
+    /**
+     * Publishes the queries of a script as they are parsed, parsing only as many queries ahead as the subscriber
+     * has requested. Parsing runs on {@link Parser#defaultExecutor()}.
+     */
+    public static <T extends TypeQLQuery> Flow.Publisher<T> parseQueriesAsync(Reader reader) {
+        return parser.parseQueriesEOFAsync(reader);
+    }
+
+    /**
+     * Publishes the queries of a script as they are parsed on {@code executor}, parsing only as many queries ahead
+     * as the subscriber has requested.
+     */
+    public static <T extends TypeQLQuery> Flow.Publisher<T> parseQueriesAsync(Reader reader, Executor executor) {
+        return parser.parseQueriesEOFAsync(reader, executor);
+    }
+
+    /**
+     * Parses a script of queries, such as the contents of an editor, so that it can be re-parsed incrementally
+     * with {@link ParsedScript#edit(int, int, String)} as the script is edited.
+     */
+    public static ParsedScript parseScript(String script) {
+        return parser.parseScriptEOF(script);
+    }
+
+    /**
+     * Checks that a query is syntactically well-formed without building it, which is cheaper than parsing the query
+     * when only its syntax matters.
+     *
+     * @return the syntax errors in the query, which is empty if the query is well-formed
+     */
+    public static List<ValidationError> validateSyntax(String queryString) {
+        return parser.validateSyntaxEOF(queryString);
+    }
+
+    /**
+     * Validates a script of queries in a single streaming pass, reporting every syntax error and every invalid
+     * query with its position, rather than stopping at the first error. The reader is closed when the returned
+     * stream is closed.
+     */
+    public static Stream<ValidationError> validateQueries(Reader reader) {
+        return parser.validateQueriesEOF(reader);
+    }
+
+    /**
+     * Validates a UTF-8 encoded script file like {@link #validateQueries(Reader)}, reading queries from a
+     * memory-mapped view of the file. The file is closed when the returned stream is closed.
+     */
+    public static Stream<ValidationError> validateQueries(Path path) throws IOException {
+        return parser.validateQueriesEOF(path);
+    }
+
+    /**
+     * Parses a query containing {@code ?name} placeholders in place of literal values, for example
+     * {@code match $x isa person, has name ?name;}, into a template whose placeholders can be bound repeatedly
+     * with {@link PreparedQuery#bind(java.util.Map)}. Binding copies only the statements holding placeholders, and
+     * neither parses nor validates the query again.
+     */
+    public static PreparedQuery prepare(String queryString) {
+        return parser.prepareQueryEOF(queryString);
+    }
+
     public static Pattern parsePattern(String pattern) {
         return parser.parsePatternEOF(pattern);
     }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generators for the representative TypeQL inputs that the benchmarks run against.
+ * All corpora are deterministic, so results are comparable between releases.
+ */
+public class Corpus {
+
+    public static String pointLookup(int i) {
+        return "match $p isa person, has email \"user-" + i + "@vaticle.com\"; get $p;";
+    }
+
+    public static String insertStatement(int i) {
+        return "$p" + i + " isa person, has name \"name-" + i + "\", has age " + (i % 100) +
+                ", has height " + (150 + i % 50) + ".5, has birth-date 1990-01-" + (10 + i % 18) + ";";
+    }
+
+    /**
+     * @param statements number of thing variables in the single insert query
+     * @return one insert query containing the given number of statements
+     */
+    public static String insert(int statements) {
+        return "insert " + IntStream.range(0, statements).mapToObj(Corpus::insertStatement)
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * @param queries number of queries in the script
+     * @return a script of small insert queries, as found in data migration files
+     */
+    public static String insertScript(int queries) {
+        return IntStream.range(0, queries).mapToObj(i -> "insert " + insertStatement(i))
+                .collect(Collectors.joining("\n"));
+    }
+
+    public static String matchQuery(int i) {
+        return "match $p isa person, has name \"name-" + (i % 1000) + "\", has age " + (i % 100) + "; " +
+                "$e (employee: $p, employer: $c) isa employment; $c isa company, has name \"company-" + (i % 50) +
+                "\"; get $p, $c;";
+    }
+
+    /**
+     * @param queries number of queries in the script
+     * @return a script of generated match queries, which repeat the same few constraints with varying values
+     */
+    public static String matchScript(int queries) {
+        return IntStream.range(0, queries).mapToObj(Corpus::matchQuery).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * @param depth nesting depth of the disjunctions
+     * @return a match query whose disjunctions are nested inside each other, to the given depth
+     */
+    public static String nestedDisjunction(int depth) {
+        return "match $x isa person; " + nestedDisjunctionPattern(depth) + ";";
+    }
+
+    private static String nestedDisjunctionPattern(int depth) {
+        if (depth == 0) return "$x has name \"leaf\"";
+        return "{ $x has name \"n" + depth + "\"; " + nestedDisjunctionPattern(depth - 1) + "; } or " +
+                "{ $x has age " + depth + "; }";
+    }
+
+    /**
+     * @param width number of sibling disjunctions
+     * @return a match query with the given number of two-way disjunctions side by side
+     */
+    public static String wideDisjunction(int width) {
+        return "match $x isa person; " + IntStream.range(0, width)
+                .mapToObj(i -> "{ $x has name \"n" + i + "\"; } or { $x has age " + i + "; };")
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * @param types number of entity types, each with its own attribute, relation and rule
+     * @return the definables of a large schema, without the 'define' keyword
+     */
+    public static String schema(int types) {
+        StringBuilder schema = new StringBuilder();
+        for (int i = 0; i < types; i++) {
+            schema.append("name-").append(i).append(" sub attribute, value string;\n");
+            schema.append("score-").append(i).append(" sub attribute, value double;\n");
+            schema.append("employment-").append(i).append(" sub relation, relates employee-").append(i)
+                    .append(", relates employer-").append(i).append(";\n");
+            schema.append("entity-").append(i).append(" sub entity, owns name-").append(i).append(" @key, owns score-")
+                    .append(i).append(", plays employment-").append(i).append(":employee-").append(i).append(";\n");
+            schema.append("rule rule-").append(i).append(": when { $e isa entity-").append(i)
+                    .append(", has score-").append(i).append(" > 0.5; } then { $e has name-").append(i)
+                    .append(" \"scored\"; };\n");
+        }
+        return schema.toString();
+    }
+
+    public static String define(int types) {
+        return "define\n" + schema(types);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares visiting a complete parse tree against building insert queries directly while parsing. Both parsers
+ * have the hand-written fast path disabled, so that every query goes through ANTLR. Compare
+ * {@code gc.alloc.rate.norm} from the GC profiler as well as throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectBuildBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int statements;
+
+    private Parser parseTree;
+    private Parser directBuild;
+    private String query;
+
+    @Setup
+    public void setup() {
+        parseTree = new Parser();
+        directBuild = new Parser(Parser.Options.defaults().directBuild(true));
+        query = Corpus.insert(statements);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseTree() {
+        return parseTree.parseQueryEOF(query);
+    }
+
+    @Benchmark
+    public TypeQLQuery directBuild() {
+        return directBuild.parseQueryEOF(query);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.parser.ValidationError;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written ASCII lexer against the generated {@code TypeQLLexer}, on a schema definition and on a
+ * large insert. Checking syntax alone shows the lexer's share of the cost most clearly, as no query is built. The
+ * hand-written fast path is disabled, so that every query goes through ANTLR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private Parser asciiLexer;
+    private Parser antlrLexer;
+    private String schema;
+    private String insert;
+
+    @Setup
+    public void setup() {
+        asciiLexer = new Parser(Parser.Options.defaults().asciiLexer(true));
+        antlrLexer = new Parser();
+        schema = Corpus.define(size);
+        insert = Corpus.insert(size);
+    }
+
+    @Benchmark
+    public List<ValidationError> validateSchemaWithAsciiLexer() {
+        return asciiLexer.validateSyntaxEOF(schema);
+    }
+
+    @Benchmark
+    public List<ValidationError> validateSchemaWithAntlrLexer() {
+        return antlrLexer.validateSyntaxEOF(schema);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseSchemaWithAsciiLexer() {
+        return asciiLexer.parseQueryEOF(schema);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseSchemaWithAntlrLexer() {
+        return antlrLexer.parseQueryEOF(schema);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseInsertWithAsciiLexer() {
+        return asciiLexer.parseQueryEOF(insert);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseInsertWithAntlrLexer() {
+        return antlrLexer.parseQueryEOF(insert);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.pattern.Conjunctable;
+import com.vaticle.typeql.lang.pattern.Conjunction;
+import com.vaticle.typeql.lang.pattern.Disjunction;
+import com.vaticle.typeql.lang.pattern.FactoredConjunction;
+import com.vaticle.typeql.lang.pattern.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conjunctions memoise their normal form, so every invocation runs against a freshly parsed pattern. The lazy
+ * variant streams the same conjunctions without holding them, and is consumed by counting them. The factored
+ * variant normalises each disjunction separately, so its cost grows with the width of wide disjunctions rather
+ * than with the size of their Cartesian product.
+ * The patterns are large enough for the normalisation to dominate the per-invocation setup cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalisationBenchmark {
+
+    @Param({"4", "10"})
+    public int size;
+
+    @Param({"nested", "wide"})
+    public String shape;
+
+    private final Parser parser = new Parser();
+    private String query;
+    private Conjunction<? extends Pattern> conjunction;
+
+    @Setup(Level.Trial)
+    public void setupQuery() {
+        query = shape.equals("nested") ? Corpus.nestedDisjunction(size) : Corpus.wideDisjunction(size);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupConjunction() {
+        conjunction = parser.parseQueryEOF(query).asMatch().conjunction();
+    }
+
+    @Benchmark
+    public Disjunction<Conjunction<Conjunctable>> normalise() {
+        return conjunction.normalise();
+    }
+
+    @Benchmark
+    public long normaliseLazily() {
+        return conjunction.normaliseLazily().count();
+    }
+
+    @Benchmark
+    public FactoredConjunction factorise() {
+        return conjunction.factorise();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.pattern.Definable;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private Parser parser;
+    private String pointLookup;
+    private String insert;
+    private String insertScript;
+    private String schema;
+
+    @Setup
+    public void setup() {
+        parser = new Parser();
+        pointLookup = Corpus.pointLookup(size);
+        insert = Corpus.insert(size);
+        insertScript = Corpus.insertScript(size);
+        schema = Corpus.schema(size / 10);
+    }
+
+    @Benchmark
+    public TypeQLQuery parsePointLookup() {
+        return parser.parseQueryEOF(pointLookup);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseInsert() {
+        return parser.parseQueryEOF(insert);
+    }
+
+    @Benchmark
+    public List<TypeQLQuery> parseInsertScript() {
+        return parser.<TypeQLQuery>parseQueriesEOF(insertScript).collect(toList());
+    }
+
+    @Benchmark
+    public List<Definable> parseSchema() {
+        return parser.parseDefinablesEOF(schema);
+    }
+}
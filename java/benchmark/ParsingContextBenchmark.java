@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.grammar.TypeQLLexer;
+import com.vaticle.typeql.grammar.TypeQLParser;
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.antlr.v4.runtime.atn.PredictionMode.SLL;
+
+/**
+ * Compares allocating a new lexer, token stream and parser for every small query against the
+ * per-thread parsing context reused by {@link Parser}. Run with the GC profiler (the default in
+ * {@link BenchmarkRunner}) and compare {@code gc.alloc.rate.norm}, the bytes allocated per query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingContextBenchmark {
+
+    @Param({"1", "1000"})
+    public int id;
+
+    private Parser parser;
+    private String query;
+
+    @Setup
+    public void setup() {
+        parser = new Parser();
+        query = Corpus.pointLookup(id);
+    }
+
+    @Benchmark
+    public TypeQLQuery freshContext() {
+        TypeQLLexer lexer = new TypeQLLexer(CharStreams.fromString(query));
+        lexer.removeErrorListeners();
+        TypeQLParser antlrParser = new TypeQLParser(new CommonTokenStream(lexer));
+        antlrParser.removeErrorListeners();
+        antlrParser.setErrorHandler(new BailErrorStrategy());
+        antlrParser.getInterpreter().setPredictionMode(SLL);
+        return parser.visitEof_query(antlrParser.eof_query());
+    }
+
+    @Benchmark
+    public TypeQLQuery reusedContext() {
+        return parser.parseQueryEOF(query);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerialisationBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean pretty;
+
+    private TypeQLQuery insert;
+    private TypeQLQuery define;
+    private TypeQLQuery nestedDisjunction;
+
+    @Setup
+    public void setup() {
+        Parser parser = new Parser();
+        insert = parser.parseQueryEOF(Corpus.insert(size));
+        define = parser.parseQueryEOF(Corpus.define(size / 10));
+        nestedDisjunction = parser.parseQueryEOF(Corpus.nestedDisjunction(10));
+    }
+
+    @Benchmark
+    public String insertToString() {
+        return insert.toString(pretty);
+    }
+
+    @Benchmark
+    public String defineToString() {
+        return define.toString(pretty);
+    }
+
+    @Benchmark
+    public String nestedDisjunctionToString() {
+        return nestedDisjunction.toString(pretty);
+    }
+}
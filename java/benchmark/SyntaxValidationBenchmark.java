@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.benchmark;
+
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.parser.ValidationError;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing a query into TypeQL objects against only checking its syntax. Parsing is measured both with the
+ * default options and with the hand-written fast path enabled, as the fast path covers the point lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SyntaxValidationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private Parser parser;
+    private Parser antlrParser;
+    private String pointLookup;
+    private String insert;
+    private String schema;
+
+    @Setup
+    public void setup() {
+        parser = new Parser(Parser.Options.defaults().fastPath(true));
+        antlrParser = new Parser();
+        pointLookup = Corpus.pointLookup(size);
+        insert = Corpus.insert(size);
+        schema = Corpus.define(size);
+    }
+
+    @Benchmark
+    public TypeQLQuery parsePointLookup() {
+        return parser.parseQueryEOF(pointLookup);
+    }
+
+    @Benchmark
+    public TypeQLQuery parsePointLookupWithAntlr() {
+        return antlrParser.parseQueryEOF(pointLookup);
+    }
+
+    @Benchmark
+    public List<ValidationError> validatePointLookup() {
+        return parser.validateSyntaxEOF(pointLookup);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseInsert() {
+        return parser.parseQueryEOF(insert);
+    }
+
+    @Benchmark
+    public List<ValidationError> validateInsert() {
+        return parser.validateSyntaxEOF(insert);
+    }
+
+    @Benchmark
+    public TypeQLQuery parseSchema() {
+        return parser.parseQueryEOF(schema);
+    }
+
+    @Benchmark
+    public List<ValidationError> validateSchema() {
+        return parser.validateSyntaxEOF(schema);
+    }
+}
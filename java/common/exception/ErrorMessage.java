@@ -101,6 +101,30 @@ public class ErrorMessage extends com.vaticle.typedb.common.exception.ErrorMessa
             new ErrorMessage(39, "Illegal grammar!");
     public static final ErrorMessage ILLEGAL_CHAR_IN_LABEL =
             new ErrorMessage(40, "'%s' is not a valid Type label. Type labels must start with a letter, and may contain only letters, numbers, '-' and '_'.");
+    public static final ErrorMessage INVALID_WARM_UP_SNAPSHOT =
+            new ErrorMessage(41, "Invalid parser warm-up snapshot: %s.");
+    public static final ErrorMessage ILLEGAL_QUERY_SIZE =
+            new ErrorMessage(42, "A query in '%s' is larger than the maximum of %s bytes.");
+    public static final ErrorMessage UNBOUND_PARAMETER =
+            new ErrorMessage(43, "Query parameter '%s' has not been bound to a value.");
+    public static final ErrorMessage UNKNOWN_PARAMETER =
+            new ErrorMessage(44, "Query parameter '%s' does not exist in the prepared query.");
+    public static final ErrorMessage INVALID_PARAMETER_VALUE =
+            new ErrorMessage(45, "Query parameter '%s' cannot be bound to a value of type '%s'.");
+    public static final ErrorMessage INPUT_LENGTH_LIMIT_EXCEEDED =
+            new ErrorMessage(46, "The input is longer than the parser limit of %s characters.");
+    public static final ErrorMessage TOKEN_LIMIT_EXCEEDED =
+            new ErrorMessage(47, "The input contains more than the parser limit of %s tokens.");
+    public static final ErrorMessage NESTING_LIMIT_EXCEEDED =
+            new ErrorMessage(48, "The input nests patterns deeper than the parser limit of %s.");
+    public static final ErrorMessage PARSE_DEADLINE_EXCEEDED =
+            new ErrorMessage(49, "The input could not be parsed within the parser time limit of %s.");
+    public static final ErrorMessage PARSE_INTERRUPTED =
+            new ErrorMessage(50, "Parsing was interrupted.");
+    public static final ErrorMessage NORMALISATION_LIMIT_EXCEEDED =
+            new ErrorMessage(51, "The pattern normalises into %s conjunctions, more than the limit of %s.");
+    public static final ErrorMessage FROZEN_PATTERN_MODIFICATION =
+            new ErrorMessage(52, "'%s' cannot be changed, as it is shared between queries by hash-consing.");
 
 
     private static final String codePrefix = "TQL";
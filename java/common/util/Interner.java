@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.common.util;
+
+/**
+ * A bounded table of strings, used to share one instance between identical variable names and type labels
+ * rather than keeping a copy per occurrence, as large insert batches repeat the same few names many times.
+ * The table is direct-mapped: a string replaces whichever string was stored in its slot, so memory use is fixed,
+ * and a name that is not in the table is simply returned as is. Interning is disabled until {@link #enable(int)}
+ * is called.
+ */
+public class Interner {
+
+    private static volatile Interner interner = null;
+
+    // Races between threads writing to the same slot are benign, as strings are immutable and safely published
+    private final String[] table;
+    private final int mask;
+
+    private Interner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Enables interning with a new, empty table.
+     *
+     * @param capacity the number of strings the table holds, rounded up to a power of two
+     */
+    public static void enable(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Interner capacity must be positive");
+        interner = new Interner(capacity);
+    }
+
+    public static void disable() {
+        interner = null;
+    }
+
+    public static boolean isEnabled() {
+        return interner != null;
+    }
+
+    /**
+     * @return an instance equal to {@code string}, which is shared with other callers if interning is enabled
+     */
+    public static String intern(String string) {
+        Interner current = interner;
+        if (current == null || string == null) return string;
+        else return current.get(string);
+    }
+
+    private String get(String string) {
+        int hash = string.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String existing = table[slot];
+        if (string.equals(existing)) return existing;
+        table[slot] = string;
+        return string;
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.grammar.TypeQLLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.Arrays;
+
+import static com.vaticle.typeql.grammar.TypeQLLexer.ABSTRACT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.AS;
+import static com.vaticle.typeql.grammar.TypeQLLexer.ATTRIBUTE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.BOOLEAN;
+import static com.vaticle.typeql.grammar.TypeQLLexer.BOOLEAN_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.COMPUTE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.CONTAINS;
+import static com.vaticle.typeql.grammar.TypeQLLexer.COUNT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DATETIME;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DATETIME_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DATE_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DEFINE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DELETE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DOUBLE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.DOUBLE_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.ENTITY;
+import static com.vaticle.typeql.grammar.TypeQLLexer.EQ;
+import static com.vaticle.typeql.grammar.TypeQLLexer.GET;
+import static com.vaticle.typeql.grammar.TypeQLLexer.GROUP;
+import static com.vaticle.typeql.grammar.TypeQLLexer.GT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.GTE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.HAS;
+import static com.vaticle.typeql.grammar.TypeQLLexer.IID;
+import static com.vaticle.typeql.grammar.TypeQLLexer.IID_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.INSERT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.IS;
+import static com.vaticle.typeql.grammar.TypeQLLexer.ISA_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.IS_KEY;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LABEL_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LABEL_SCOPED_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LIKE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LIMIT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LONG;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LONG_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.LTE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.MATCH;
+import static com.vaticle.typeql.grammar.TypeQLLexer.MAX;
+import static com.vaticle.typeql.grammar.TypeQLLexer.MEAN;
+import static com.vaticle.typeql.grammar.TypeQLLexer.MEDIAN;
+import static com.vaticle.typeql.grammar.TypeQLLexer.MIN;
+import static com.vaticle.typeql.grammar.TypeQLLexer.NEQ;
+import static com.vaticle.typeql.grammar.TypeQLLexer.NOT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.OFFSET;
+import static com.vaticle.typeql.grammar.TypeQLLexer.OR;
+import static com.vaticle.typeql.grammar.TypeQLLexer.ORDER_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.OWNS;
+import static com.vaticle.typeql.grammar.TypeQLLexer.PARAM_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.PLAYS;
+import static com.vaticle.typeql.grammar.TypeQLLexer.REGEX;
+import static com.vaticle.typeql.grammar.TypeQLLexer.RELATES;
+import static com.vaticle.typeql.grammar.TypeQLLexer.RELATION;
+import static com.vaticle.typeql.grammar.TypeQLLexer.ROLE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.RULE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.SORT;
+import static com.vaticle.typeql.grammar.TypeQLLexer.STD;
+import static com.vaticle.typeql.grammar.TypeQLLexer.STRING;
+import static com.vaticle.typeql.grammar.TypeQLLexer.STRING_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.SUB_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.SUM;
+import static com.vaticle.typeql.grammar.TypeQLLexer.THEN;
+import static com.vaticle.typeql.grammar.TypeQLLexer.THING;
+import static com.vaticle.typeql.grammar.TypeQLLexer.TYPE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.UNDEFINE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.VALUE;
+import static com.vaticle.typeql.grammar.TypeQLLexer.VAR_;
+import static com.vaticle.typeql.grammar.TypeQLLexer.WHEN;
+
+/**
+ * A hand-written lexer for ASCII input, which produces the same default channel tokens as {@link TypeQLLexer}
+ * without running the lexer ATN. Whitespace and comments are skipped without creating hidden tokens for them.
+ * Any token that it does not recognise, including every token that starts with or continues into a non-ASCII
+ * character, is lexed by the wrapped {@link TypeQLLexer} from the same position, so the two always agree.
+ * Where several lexer rules match the same text, the token type is that of the rule declared first in the
+ * grammar, as in ANTLR: for example, {@code sub} is a {@code SUB_} rather than a {@code SUB}.
+ */
+class AsciiLexer implements TokenSource {
+
+    private static final int SEMICOLON = tokenType("';'");
+    private static final int COMMA = tokenType("','");
+    private static final int OPEN_BRACE = tokenType("'{'");
+    private static final int CLOSE_BRACE = tokenType("'}'");
+    private static final int OPEN_PARENTHESIS = tokenType("'('");
+    private static final int CLOSE_PARENTHESIS = tokenType("')'");
+    private static final int COLON = tokenType("':'");
+    private static final Keywords KEYWORDS = new Keywords(
+            "match", MATCH, "get", GET, "define", DEFINE, "undefine", UNDEFINE, "insert", INSERT,
+            "delete", DELETE, "compute", COMPUTE, "thing", THING, "entity", ENTITY, "attribute", ATTRIBUTE,
+            "relation", RELATION, "role", ROLE, "rule", RULE, "offset", OFFSET, "limit", LIMIT, "sort", SORT,
+            "asc", ORDER_, "desc", ORDER_, "type", TYPE, "abstract", ABSTRACT, "sub", SUB_, "owns", OWNS,
+            "regex", REGEX, "as", AS, "plays", PLAYS, "relates", RELATES, "when", WHEN, "then", THEN,
+            "iid", IID, "isa", ISA_, "has", HAS, "value", VALUE, "is", IS, "or", OR, "not", NOT,
+            "like", LIKE, "contains", CONTAINS, "group", GROUP, "count", COUNT, "max", MAX, "min", MIN,
+            "mean", MEAN, "median", MEDIAN, "std", STD, "sum", SUM, "long", LONG, "double", DOUBLE,
+            "string", STRING, "boolean", BOOLEAN, "datetime", DATETIME, "true", BOOLEAN_, "false", BOOLEAN_
+    );
+
+    private final TypeQLLexer lexer;
+    private CharStream input;
+    private Pair<TokenSource, CharStream> source;
+    private int line;
+    private int column;
+    private int tokenLine;
+    private int tokenColumn;
+    private char[] word;
+
+    AsciiLexer(TypeQLLexer lexer) {
+        this.lexer = lexer;
+        this.word = new char[32];
+    }
+
+    private static int tokenType(String literalName) {
+        for (int type = 1; type <= TypeQLLexer.VOCABULARY.getMaxTokenType(); type++) {
+            if (literalName.equals(TypeQLLexer.VOCABULARY.getLiteralName(type))) return type;
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Continues from the current input and position of the wrapped lexer, which must have just been reset.
+     */
+    void reset() {
+        input = lexer.getInputStream();
+        source = new Pair<>(lexer, input);
+        line = lexer.getLine();
+        column = lexer.getCharPositionInLine();
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            int start = input.index();
+            tokenLine = line;
+            tokenColumn = column;
+            int ch = input.LA(1);
+            if (ch == IntStream.EOF) {
+                return lexer.getTokenFactory().create(source, Token.EOF, null, Token.DEFAULT_CHANNEL,
+                                                      start, start - 1, line, column);
+            } else if (isSpace(ch)) {
+                do consume(); while (isSpace(input.LA(1)));
+            } else if (ch == '#') {
+                do ch = consume(); while (ch != '\n' && input.LA(1) != IntStream.EOF);
+            } else {
+                int type = token(ch);
+                Token token = type != Token.INVALID_TYPE ? create(type, start) : delegate(start);
+                if (token.getChannel() == Token.DEFAULT_CHANNEL) return token;
+            }
+        }
+    }
+
+    /**
+     * Consumes the token starting with {@code ch}, or nothing if it should be left to the full lexer.
+     *
+     * @return the type of the token, or {@link Token#INVALID_TYPE} if it should be left to the full lexer
+     */
+    private int token(int ch) {
+        switch (ch) {
+            case ';':
+                return single(SEMICOLON);
+            case ',':
+                return single(COMMA);
+            case '{':
+                return single(OPEN_BRACE);
+            case '}':
+                return single(CLOSE_BRACE);
+            case '(':
+                return single(OPEN_PARENTHESIS);
+            case ')':
+                return single(CLOSE_PARENTHESIS);
+            case ':':
+                return single(COLON);
+            case '=':
+                return single(EQ);
+            case '!':
+                return input.LA(2) == '=' ? fixed(2, NEQ) : Token.INVALID_TYPE;
+            case '>':
+                return input.LA(2) == '=' ? fixed(2, GTE) : single(GT);
+            case '<':
+                return input.LA(2) == '=' ? fixed(2, LTE) : single(LT);
+            case '@':
+                return input.LA(2) == 'k' && input.LA(3) == 'e' && input.LA(4) == 'y' ?
+                        fixed(4, IS_KEY) : Token.INVALID_TYPE;
+            case '$':
+                if (input.LA(2) == '_') return fixed(2, VAR_);
+                else return name(VAR_);
+            case '?':
+                return name(PARAM_);
+            case '"':
+            case '\'':
+                return string(ch);
+            default:
+                if (isLetter(ch)) return word();
+                else if (isDigit(ch) || ch == '+' || ch == '-') return number(ch);
+                else return Token.INVALID_TYPE;
+        }
+    }
+
+    private int single(int type) {
+        return fixed(1, type);
+    }
+
+    private int fixed(int length, int type) {
+        skip(length);
+        return type;
+    }
+
+    /**
+     * Consumes a variable or parameter: a sigil followed by a letter or digit, then letters, digits, '_' or '-'.
+     */
+    private int name(int type) {
+        if (!isLetterOrDigit(input.LA(2))) return Token.INVALID_TYPE;
+        consume();
+        while (isNameChar(input.LA(1))) consume();
+        return type;
+    }
+
+    /**
+     * Consumes a quoted string, which may contain escaped characters and newlines.
+     */
+    private int string(int quote) {
+        consume();
+        while (true) {
+            int ch = input.LA(1);
+            if (ch == IntStream.EOF) return Token.INVALID_TYPE;
+            consume();
+            if (ch == quote) return STRING_;
+            else if (ch == '\\') {
+                if (input.LA(1) == IntStream.EOF) return Token.INVALID_TYPE;
+                consume();
+            }
+        }
+    }
+
+    /**
+     * Consumes a keyword, a label or a scoped label, reading the word into a reused buffer so that keywords can be
+     * recognised without allocating.
+     */
+    private int word() {
+        int length = 0;
+        for (int ch = input.LA(1); isNameChar(ch); ch = input.LA(1)) {
+            if (length == word.length) word = Arrays.copyOf(word, length * 2);
+            word[length++] = (char) ch;
+            consume();
+        }
+        int next = input.LA(1);
+        if (next > Byte.MAX_VALUE) {
+            return Token.INVALID_TYPE;
+        } else if (next == ':' && input.LA(2) > Byte.MAX_VALUE) {
+            return Token.INVALID_TYPE;
+        } else if (next == ':' && isLetter(input.LA(2))) {
+            consume();
+            while (isNameChar(input.LA(1))) consume();
+            return input.LA(1) > Byte.MAX_VALUE ? Token.INVALID_TYPE : LABEL_SCOPED_;
+        }
+        int type = KEYWORDS.type(word, length);
+        if (next == '!' && (type == SUB_ || type == ISA_)) consume();
+        return type != Token.INVALID_TYPE ? type : LABEL_;
+    }
+
+    /**
+     * Consumes the longest of a long, double, date, date-time or IID starting at {@code first}. These overlap,
+     * so their lengths are measured by lookahead before consuming any of them.
+     */
+    private int number(int first) {
+        boolean signed = first == '+' || first == '-';
+        int end = signed ? 2 : 1;
+        int digitsStart = end;
+        while (isDigit(input.LA(end))) end++;
+        int digits = end - digitsStart;
+        if (digits == 0) return Token.INVALID_TYPE;
+
+        int type = LONG_, length = end - 1;
+        if (!signed && first == '0' && input.LA(2) == 'x' && isHexDigit(input.LA(3))) {
+            int iid = 3;
+            while (isHexDigit(input.LA(iid))) iid++;
+            type = IID_;
+            length = iid - 1;
+        } else if (input.LA(end) == '.' && isDigit(input.LA(end + 1))) {
+            int fraction = end + 1;
+            while (isDigit(input.LA(fraction))) fraction++;
+            type = DOUBLE_;
+            length = fraction - 1;
+        } else if ((signed || digits == 4) && input.LA(end) == '-' && isDigitIn(input.LA(end + 1), '1')
+                && isDigit(input.LA(end + 2)) && input.LA(end + 3) == '-' && isDigitIn(input.LA(end + 4), '3')
+                && isDigit(input.LA(end + 5))) {
+            type = DATE_;
+            length = end + 5;
+            int time = length + 1;
+            if (input.LA(time) == 'T' && isDigitIn(input.LA(time + 1), '2') && isDigit(input.LA(time + 2))
+                    && input.LA(time + 3) == ':' && isDigitIn(input.LA(time + 4), '6') && isDigit(input.LA(time + 5))) {
+                time += 6;
+                if (input.LA(time) == ':' && isDigitIn(input.LA(time + 1), '6') && isDigit(input.LA(time + 2))) {
+                    time += 3;
+                    if (input.LA(time) == '.' && isDigit(input.LA(time + 1))) {
+                        time += 2;
+                        if (isDigit(input.LA(time))) time++;
+                        if (isDigit(input.LA(time))) time++;
+                    }
+                }
+                type = DATETIME_;
+                length = time - 1;
+            }
+        }
+        skip(length);
+        return type;
+    }
+
+    /**
+     * Lexes the next token with the full lexer, after undoing anything consumed since {@code start}.
+     */
+    private Token delegate(int start) {
+        input.seek(start);
+        lexer.setLine(tokenLine);
+        lexer.setCharPositionInLine(tokenColumn);
+        Token token = lexer.nextToken();
+        line = lexer.getLine();
+        column = lexer.getCharPositionInLine();
+        return token;
+    }
+
+    private Token create(int type, int start) {
+        return lexer.getTokenFactory().create(source, type, null, Token.DEFAULT_CHANNEL, start, input.index() - 1,
+                                              tokenLine, tokenColumn);
+    }
+
+    private int consume() {
+        int ch = input.LA(1);
+        if (ch == '\n') {
+            line++;
+            column = 0;
+        } else {
+            column++;
+        }
+        input.consume();
+        return ch;
+    }
+
+    /**
+     * Consumes characters that are known not to include a newline.
+     */
+    private void skip(int length) {
+        input.seek(input.index() + length);
+        column += length;
+    }
+
+    private static boolean isSpace(int ch) {
+        return ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n';
+    }
+
+    private static boolean isLetter(int ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+
+    private static boolean isDigit(int ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isDigitIn(int ch, char max) {
+        return ch >= '0' && ch <= max;
+    }
+
+    private static boolean isHexDigit(int ch) {
+        return isDigit(ch) || (ch >= 'a' && ch <= 'f');
+    }
+
+    private static boolean isLetterOrDigit(int ch) {
+        return isLetter(ch) || isDigit(ch);
+    }
+
+    private static boolean isNameChar(int ch) {
+        return isLetterOrDigit(ch) || ch == '_' || ch == '-';
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return column;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return input;
+    }
+
+    @Override
+    public String getSourceName() {
+        return input.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        lexer.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return lexer.getTokenFactory();
+    }
+
+    /**
+     * The keywords of the grammar, grouped by length so that a word is only compared with keywords of its length.
+     */
+    private static class Keywords {
+
+        private final char[][][] words;
+        private final int[][] types;
+
+        private Keywords(Object... keywordsAndTypes) {
+            int maxLength = 0;
+            for (int i = 0; i < keywordsAndTypes.length; i += 2) {
+                maxLength = Math.max(maxLength, ((String) keywordsAndTypes[i]).length());
+            }
+            words = new char[maxLength + 1][0][];
+            types = new int[maxLength + 1][0];
+            for (int i = 0; i < keywordsAndTypes.length; i += 2) {
+                String keyword = (String) keywordsAndTypes[i];
+                int length = keyword.length();
+                words[length] = Arrays.copyOf(words[length], words[length].length + 1);
+                words[length][words[length].length - 1] = keyword.toCharArray();
+                types[length] = Arrays.copyOf(types[length], types[length].length + 1);
+                types[length][types[length].length - 1] = (Integer) keywordsAndTypes[i + 1];
+            }
+        }
+
+        private int type(char[] word, int length) {
+            if (length >= words.length) return Token.INVALID_TYPE;
+            char[][] candidates = words[length];
+            for (int i = 0; i < candidates.length; i++) {
+                if (Arrays.equals(candidates[i], 0, length, word, 0, length)) return types[length][i];
+            }
+            return Token.INVALID_TYPE;
+        }
+    }
+}
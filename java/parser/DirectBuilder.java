@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typedb.common.collection.Either;
+import com.vaticle.typeql.grammar.TypeQLParser;
+import com.vaticle.typeql.lang.common.TypeQLToken;
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.Pattern;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
+import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
+import com.vaticle.typeql.lang.query.TypeQLDelete;
+import com.vaticle.typeql.lang.query.TypeQLInsert;
+import com.vaticle.typeql.lang.query.TypeQLMatch;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeVisitor;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_attribute;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_attributes;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_eof_queries;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_eof_query;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_label;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_player;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_predicate;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_predicate_equality;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_predicate_substring;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_predicate_value;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_query;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_query_delete;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_query_insert;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_query_update;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_relation;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_role_player;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_schema_native;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_type;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_type_native;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_unreserved;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_value;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_variable_attribute;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_variable_relation;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_variable_thing;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_variable_thing_any;
+import static com.vaticle.typeql.grammar.TypeQLParser.RULE_variable_things;
+import static com.vaticle.typeql.lang.pattern.variable.UnboundVariable.hidden;
+
+/**
+ * Builds TypeQL objects while ANTLR parses, with parse tree building switched off, so that a query's parse
+ * tree never exists in full. When the parser exits a rule, the rule's result is built from the results of its
+ * sub-rules, which sit above the mark taken when the rule was entered, and from the tokens the rule consumed
+ * itself. Rules that are not built here, such as {@code define} bodies and {@code match} patterns, switch parse
+ * tree building back on for their own subtree, which is handed to the {@link Parser} visitor on exit.
+ *
+ * Errors raised while building a query are held rather than thrown, so that a syntax error later in the input
+ * still takes precedence, and so that a script of queries only fails once the invalid query is reached.
+ */
+class DirectBuilder implements ParseTreeListener {
+
+    private static final boolean[] DIRECT = directRules(
+            RULE_eof_query, RULE_eof_queries, RULE_query, RULE_query_insert, RULE_query_delete, RULE_query_update,
+            RULE_variable_things, RULE_variable_thing_any, RULE_variable_thing, RULE_variable_relation,
+            RULE_variable_attribute, RULE_relation, RULE_role_player, RULE_player, RULE_attributes, RULE_attribute,
+            RULE_predicate, RULE_predicate_equality, RULE_predicate_substring, RULE_predicate_value, RULE_value,
+            RULE_type, RULE_label, RULE_schema_native, RULE_type_native, RULE_unreserved
+    );
+
+    private final Parser visitor;
+    private final TypeQLParser parser;
+    private Object[] results;
+    private int[] rules;
+    private int size;
+    private int[] marks;
+    private int depth;
+    private int subtreeDepth;
+    private boolean cancelled;
+
+    private DirectBuilder(Parser visitor, TypeQLParser parser) {
+        this.visitor = visitor;
+        this.parser = parser;
+        this.results = new Object[16];
+        this.rules = new int[16];
+        this.size = 0;
+        this.marks = new int[16];
+        this.depth = 0;
+        this.subtreeDepth = 0;
+        this.cancelled = false;
+    }
+
+    static DirectBuilder attach(Parser visitor, TypeQLParser parser) {
+        DirectBuilder builder = new DirectBuilder(visitor, parser);
+        parser.setBuildParseTree(false);
+        parser.addParseListener(builder);
+        return builder;
+    }
+
+    private static boolean[] directRules(int... rules) {
+        boolean[] direct = new boolean[TypeQLParser.ruleNames.length];
+        for (int rule : rules) direct[rule] = true;
+        return direct;
+    }
+
+    /**
+     * Returns the result of the entry rule once parsing has completed: a query, a failure to be passed to
+     * {@link #unwrap(Object)}, or, for a script of queries, a list of either.
+     */
+    Object result() {
+        assert size == 1 && depth == 0 && !cancelled;
+        return results[0];
+    }
+
+    static Object unwrap(Object result) {
+        if (result instanceof Failure) throw ((Failure) result).error;
+        return result;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (cancelled) return;
+        if (subtreeDepth > 0) {
+            subtreeDepth++;
+        } else if (DIRECT[ctx.getRuleIndex()]) {
+            if (depth == marks.length) marks = Arrays.copyOf(marks, depth * 2);
+            marks[depth++] = size;
+        } else {
+            subtreeDepth = 1;
+            parser.setBuildParseTree(true);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        // The bail error strategy marks every open rule with the exception before they are exited
+        if (cancelled || ctx.exception != null) {
+            cancelled = true;
+        } else if (subtreeDepth > 1) {
+            subtreeDepth--;
+        } else if (subtreeDepth == 1) {
+            subtreeDepth = 0;
+            parser.setBuildParseTree(false);
+            Object result;
+            try {
+                result = ctx.accept((ParseTreeVisitor<?>) visitor);
+            } catch (TypeQLException e) {
+                result = new Failure(e);
+            }
+            push(ctx.getRuleIndex(), result);
+        } else {
+            int from = marks[--depth];
+            Object result = failure(from, ctx.getRuleIndex());
+            if (result == null) {
+                try {
+                    result = build(ctx, from);
+                } catch (TypeQLException e) {
+                    result = new Failure(e);
+                }
+            }
+            Arrays.fill(results, from, size, null);
+            size = from;
+            push(ctx.getRuleIndex(), result);
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {}
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {}
+
+    private void push(int rule, Object result) {
+        if (size == results.length) {
+            results = Arrays.copyOf(results, size * 2);
+            rules = Arrays.copyOf(rules, size * 2);
+        }
+        rules[size] = rule;
+        results[size++] = result;
+    }
+
+    private Failure failure(int from, int rule) {
+        if (rule == RULE_eof_queries) return null;
+        for (int i = from; i < size; i++) {
+            if (results[i] instanceof Failure) return (Failure) results[i];
+        }
+        return null;
+    }
+
+    private Object child(int from, int rule) {
+        for (int i = from; i < size; i++) {
+            if (rules[i] == rule) return results[i];
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> children(int from) {
+        List<T> children = new ArrayList<>(size - from);
+        for (int i = from; i < size; i++) children.add((T) results[i]);
+        return children;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T first(int from) {
+        return (T) results[from];
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T last() {
+        return (T) results[size - 1];
+    }
+
+    private List<ThingVariable<?>> things() {
+        return last();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Either<String, UnboundVariable> type(int from) {
+        return (Either<String, UnboundVariable>) child(from, RULE_type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ThingConstraint.Has> attributes(int from) {
+        List<ThingConstraint.Has> attributes = (List<ThingConstraint.Has>) child(from, RULE_attributes);
+        return attributes != null ? attributes : Collections.emptyList();
+    }
+
+    private Object build(ParserRuleContext ctx, int from) {
+        switch (ctx.getRuleIndex()) {
+            case RULE_eof_query:
+            case RULE_query:
+            case RULE_variable_thing_any:
+                return first(from);
+            case RULE_eof_queries:
+            case RULE_variable_things:
+            case RULE_attributes:
+                return children(from);
+            case RULE_query_insert:
+                return buildInsert(from);
+            case RULE_query_delete:
+                return new TypeQLMatch.Unfiltered(this.<List<Pattern>>first(from)).delete(things());
+            case RULE_query_update:
+                return this.<TypeQLDelete>first(from).insert(things());
+            case RULE_variable_thing:
+                return buildThing((TypeQLParser.Variable_thingContext) ctx, from);
+            case RULE_variable_relation:
+                return buildRelation((TypeQLParser.Variable_relationContext) ctx, from);
+            case RULE_variable_attribute:
+                return buildAttribute((TypeQLParser.Variable_attributeContext) ctx, from);
+            case RULE_relation:
+                return new ThingConstraint.Relation(children(from));
+            case RULE_role_player:
+                return buildRolePlayer(from);
+            case RULE_player:
+                return visitor.getVar(((TypeQLParser.PlayerContext) ctx).VAR_());
+            case RULE_attribute:
+                return buildHas((TypeQLParser.AttributeContext) ctx, from);
+            case RULE_predicate:
+                return buildPredicate((TypeQLParser.PredicateContext) ctx, from);
+            case RULE_predicate_value:
+                if (size > from) return first(from);
+                else return visitor.getVar(((TypeQLParser.Predicate_valueContext) ctx).VAR_());
+            case RULE_value:
+                return visitor.visitValue((TypeQLParser.ValueContext) ctx);
+            case RULE_type:
+                if (size > from) return Either.first(first(from));
+                else return Either.second(visitor.getVar(((TypeQLParser.TypeContext) ctx).VAR_()));
+            case RULE_label:
+            case RULE_predicate_equality:
+            case RULE_predicate_substring:
+                // Each of these rules matches exactly one token
+                return ctx.getStart().getText();
+            case RULE_schema_native:
+            case RULE_type_native:
+            case RULE_unreserved:
+                return null;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    private TypeQLInsert buildInsert(int from) {
+        if (size - from == 2) {
+            return new TypeQLMatch.Unfiltered(this.<List<Pattern>>first(from)).insert(things());
+        } else {
+            return new TypeQLInsert(this.<List<ThingVariable<?>>>first(from));
+        }
+    }
+
+    private ThingVariable.Thing buildThing(TypeQLParser.Variable_thingContext ctx, int from) {
+        UnboundVariable unscoped = visitor.getVar(ctx.VAR_());
+        ThingVariable.Thing thing = null;
+
+        if (ctx.ISA_() != null) {
+            thing = unscoped.constrain(visitor.getIsaConstraint(ctx.ISA_(), type(from)));
+        } else if (ctx.IID() != null) {
+            thing = unscoped.iid(ctx.IID_().getText());
+        }
+
+        for (ThingConstraint.Has hasAttribute : attributes(from)) {
+            if (thing == null) thing = unscoped.constrain(hasAttribute);
+            else thing = thing.constrain(hasAttribute);
+        }
+        return thing;
+    }
+
+    private ThingVariable.Relation buildRelation(TypeQLParser.Variable_relationContext ctx, int from) {
+        UnboundVariable unscoped;
+        if (ctx.VAR_() != null) unscoped = visitor.getVar(ctx.VAR_());
+        else unscoped = hidden();
+
+        ThingVariable.Relation relation = unscoped.constrain((ThingConstraint.Relation) child(from, RULE_relation));
+        if (ctx.ISA_() != null) relation = relation.constrain(visitor.getIsaConstraint(ctx.ISA_(), type(from)));
+
+        for (ThingConstraint.Has hasAttribute : attributes(from)) {
+            relation = relation.constrain(hasAttribute);
+        }
+        return relation;
+    }
+
+    private ThingVariable.Attribute buildAttribute(TypeQLParser.Variable_attributeContext ctx, int from) {
+        UnboundVariable unscoped;
+        if (ctx.VAR_() != null) unscoped = visitor.getVar(ctx.VAR_());
+        else unscoped = hidden();
+
+        ThingVariable.Attribute attribute = unscoped.constrain(
+                (ThingConstraint.Value<?>) child(from, RULE_predicate)
+        );
+        if (ctx.ISA_() != null) attribute = attribute.constrain(visitor.getIsaConstraint(ctx.ISA_(), type(from)));
+
+        for (ThingConstraint.Has hasAttribute : attributes(from)) {
+            attribute = attribute.constrain(hasAttribute);
+        }
+        return attribute;
+    }
+
+    private ThingConstraint.Relation.RolePlayer buildRolePlayer(int from) {
+        UnboundVariable player = last();
+        Either<String, UnboundVariable> roleType = type(from);
+        if (roleType != null) return new ThingConstraint.Relation.RolePlayer(roleType, player);
+        else return new ThingConstraint.Relation.RolePlayer(player);
+    }
+
+    private ThingConstraint.Has buildHas(TypeQLParser.AttributeContext ctx, int from) {
+        String label = (String) child(from, RULE_label);
+        if (label == null) return new ThingConstraint.Has(visitor.getVar(ctx.VAR_()));
+        else if (ctx.VAR_() != null) return new ThingConstraint.Has(label, visitor.getVar(ctx.VAR_()));
+        else return new ThingConstraint.Has(label, (ThingConstraint.Value<?>) child(from, RULE_predicate));
+    }
+
+    private ThingConstraint.Value<?> buildPredicate(TypeQLParser.PredicateContext ctx, int from) {
+        TypeQLToken.Predicate predicate;
+        Object value;
+
+        if (rules[from] == RULE_value) {
+            predicate = TypeQLToken.Predicate.Equality.EQ;
+            value = first(from);
+        } else if (rules[from] == RULE_predicate_equality) {
+            predicate = TypeQLToken.Predicate.Equality.of(first(from));
+            value = last();
+        } else {
+            predicate = TypeQLToken.Predicate.SubString.of(first(from));
+            if (predicate == TypeQLToken.Predicate.SubString.LIKE) value = visitor.getRegex(ctx.STRING_());
+            else value = visitor.getString(ctx.STRING_());
+        }
+        return visitor.getValueConstraint(predicate, value, ctx);
+    }
+
+    private static class Failure {
+
+        private final TypeQLException error;
+
+        private Failure(TypeQLException error) {
+            this.error = error;
+        }
+    }
+}
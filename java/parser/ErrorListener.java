@@ -25,12 +25,12 @@ import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
-import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.SYNTAX_ERROR_DETAILED;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.SYNTAX_ERROR_NO_DETAILS;
 
@@ -40,16 +40,36 @@ import static com.vaticle.typeql.lang.common.exception.ErrorMessage.SYNTAX_ERROR
  */
 public class ErrorListener extends BaseErrorListener {
 
-    private final List<String> queryLines;
+    private final String query;
+    private final int lineOffset;
+    private final int column;
     private final List<SyntaxError> errors = new ArrayList<>();
+    private int[] lineStarts;
 
-    private ErrorListener(List<String> queryLines) {
-        this.queryLines = queryLines;
+    private ErrorListener(String query, int lineOffset, int column) {
+        this.query = query;
+        this.lineOffset = lineOffset;
+        this.column = column;
     }
 
     public static ErrorListener of(String query) {
-        List<String> queryLines = list(query.split("\n"));
-        return new ErrorListener(queryLines);
+        return of(query, 0);
+    }
+
+    /**
+     * Creates a listener for a query that starts {@code lineOffset} lines into a larger script, and whose
+     * lexer reports line numbers relative to that script.
+     */
+    public static ErrorListener of(String query, int lineOffset) {
+        return new ErrorListener(query, lineOffset, 0);
+    }
+
+    /**
+     * Creates a listener for a query that starts {@code lineOffset} lines and {@code column} characters into a
+     * larger script, so that the first line of the query is shown at the column it appears at in the script.
+     */
+    static ErrorListener of(String query, int lineOffset, int column) {
+        return new ErrorListener(query, lineOffset, column);
     }
 
     @Override
@@ -57,7 +77,31 @@ public class ErrorListener extends BaseErrorListener {
             Recognizer<?, ?> recognizer, Object offendingSymbol,
             int line, int charPositionInLine, String msg, RecognitionException e
     ) {
-        errors.add(new SyntaxError(queryLines.get(line - 1), line, charPositionInLine, msg));
+        errors.add(new SyntaxError(queryLine(line - 1 - lineOffset), line, charPositionInLine, msg));
+    }
+
+    @Nullable
+    private String queryLine(int index) {
+        // The line index is only built once an error is reported, as most listeners never see one
+        if (lineStarts == null) lineStarts = lineStarts(query);
+        if (index < 0 || index >= lineStarts.length) return null;
+        int end = index + 1 < lineStarts.length ? lineStarts[index + 1] - 1 : query.length();
+        String queryLine = query.substring(lineStarts[index], end);
+        if (index == 0 && column > 0) return " ".repeat(column) + queryLine;
+        else return queryLine;
+    }
+
+    private static int[] lineStarts(String query) {
+        int lines = 1;
+        for (int i = query.indexOf('\n'); i >= 0; i = query.indexOf('\n', i + 1)) lines++;
+        int[] lineStarts = new int[lines];
+        for (int line = 1, i = query.indexOf('\n'); i >= 0; i = query.indexOf('\n', i + 1)) lineStarts[line++] = i + 1;
+        return lineStarts;
+    }
+
+    List<ValidationError> errors() {
+        return errors.stream().map(error -> ValidationError.syntax(error.line, error.charPositionInLine,
+                                                                   error.toString())).collect(Collectors.toList());
     }
 
     @Override
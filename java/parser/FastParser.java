@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typedb.common.collection.Either;
+import com.vaticle.typeql.lang.common.TypeQLToken;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
+import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
+import com.vaticle.typeql.lang.query.TypeQLInsert;
+import com.vaticle.typeql.lang.query.TypeQLMatch;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.INSERT;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.MATCH;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Constraint.HAS;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Constraint.ISA;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Literal.FALSE;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Literal.TRUE;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.EQ;
+
+/**
+ * A hand-written recursive-descent parser for the most common shapes of query:
+ *
+ * <pre>
+ * match  $x isa T, has a "v", has b $y; ...
+ * insert $x isa T, has a "v", has b 10; ...
+ * match  ... insert ...
+ * </pre>
+ *
+ * Statements are thing variables with an optional {@code isa} and any number of {@code has} constraints, whose
+ * values are strings, longs, booleans or variables. The fast path builds exactly the objects that the ANTLR
+ * {@link Parser} builds for the same query, through the same constructors, and gives up by returning
+ * {@code null} as soon as it meets anything outside this subset, so that the caller can fall back to ANTLR.
+ * It never reports syntax errors itself: invalid queries are always left to the ANTLR parser.
+ */
+class FastParser {
+
+    private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+    private final String query;
+    private int position;
+
+    private FastParser(String query) {
+        this.query = query;
+        this.position = 0;
+    }
+
+    /**
+     * @return the parsed query, or {@code null} if the query is not in the subset covered by the fast path
+     */
+    @Nullable
+    static TypeQLQuery parse(String query) {
+        return new FastParser(query).query();
+    }
+
+    @Nullable
+    private TypeQLQuery query() {
+        skipSpace();
+        if (keyword(MATCH.toString())) {
+            List<ThingVariable<?>> patterns = statements();
+            if (patterns == null) return null;
+            if (atEnd()) return new TypeQLMatch.Unfiltered(patterns);
+            if (!keyword(INSERT.toString())) return null;
+            List<ThingVariable<?>> things = statements();
+            if (things == null || !atEnd()) return null;
+            return new TypeQLMatch.Unfiltered(patterns).insert(things);
+        } else if (keyword(INSERT.toString())) {
+            List<ThingVariable<?>> things = statements();
+            if (things == null || !atEnd()) return null;
+            return new TypeQLInsert(things);
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    private List<ThingVariable<?>> statements() {
+        List<ThingVariable<?>> statements = new ArrayList<>();
+        do {
+            ThingVariable<?> statement = statement();
+            if (statement == null) return null;
+            statements.add(statement);
+        } while (peek() == '$');
+        return statements;
+    }
+
+    @Nullable
+    private ThingVariable.Thing statement() {
+        UnboundVariable unscoped = variable();
+        if (unscoped == null) return null;
+
+        ThingVariable.Thing thing;
+        if (keyword(ISA.toString())) {
+            String type = label();
+            if (type == null) return null;
+            thing = unscoped.constrain(new ThingConstraint.Isa(Either.first(type), false));
+        } else {
+            ThingConstraint.Has has = has();
+            if (has == null) return null;
+            thing = unscoped.constrain(has);
+        }
+
+        while (peek() == ',') {
+            position++;
+            skipSpace();
+            ThingConstraint.Has has = has();
+            if (has == null) return null;
+            thing = thing.constrain(has);
+        }
+        if (peek() != ';') return null;
+        position++;
+        skipSpace();
+        return thing;
+    }
+
+    @Nullable
+    private ThingConstraint.Has has() {
+        if (!keyword(HAS.toString())) return null;
+        String type = label();
+        if (type == null) return null;
+
+        char next = peek();
+        if (next == '$') {
+            UnboundVariable variable = variable();
+            return variable == null ? null : new ThingConstraint.Has(type, variable);
+        } else if (next == '"' || next == '\'') {
+            String value = string();
+            return value == null ? null : new ThingConstraint.Has(type, new ThingConstraint.Value.String(EQ, value));
+        } else if (isDigit(next) || next == '+' || next == '-') {
+            Long value = longValue();
+            return value == null ? null : new ThingConstraint.Has(type, new ThingConstraint.Value.Long(EQ, value));
+        } else if (keyword(TRUE.toString())) {
+            return new ThingConstraint.Has(type, new ThingConstraint.Value.Boolean(EQ, true));
+        } else if (keyword(FALSE.toString())) {
+            return new ThingConstraint.Has(type, new ThingConstraint.Value.Boolean(EQ, false));
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    private UnboundVariable variable() {
+        if (peek() != '$') return null;
+        int start = ++position;
+        if (position < query.length() && isVariableHead(query.charAt(position))) {
+            while (position < query.length() && isVariableTail(query.charAt(position))) position++;
+            if (continuesToken(position)) return null;
+            String name = query.substring(start, position);
+            skipSpace();
+            return UnboundVariable.named(name);
+        } else if (position < query.length() && query.charAt(position) == '_' && !continuesToken(position + 1)) {
+            position++;
+            skipSpace();
+            return UnboundVariable.anonymous();
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    private String label() {
+        int start = position;
+        if (position >= query.length() || !isLabelHead(query.charAt(position))) return null;
+        while (position < query.length() && isLabelTail(query.charAt(position))) position++;
+        if (continuesToken(position)) return null;
+        String label = query.substring(start, position);
+        if (Parser.TYPEQL_KEYWORDS.contains(label)) return null;
+        skipSpace();
+        return label;
+    }
+
+    @Nullable
+    private String string() {
+        char quote = query.charAt(position);
+        int start = ++position;
+        while (position < query.length()) {
+            char ch = query.charAt(position);
+            if (ch == '\\') {
+                position += 2;
+            } else if (ch == quote) {
+                String value = query.substring(start, position++);
+                skipSpace();
+                return value;
+            } else {
+                position++;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Long longValue() {
+        int start = position;
+        if (query.charAt(position) == '+' || query.charAt(position) == '-') position++;
+        int digits = position;
+        while (position < query.length() && isDigit(query.charAt(position))) position++;
+        if (position == digits || continuesToken(position) || (position < query.length() && query.charAt(position) == '.')) {
+            return null;
+        }
+        // Longer numbers may overflow, which is left to the grammar to report
+        if (position - digits > MAX_SAFE_LONG_DIGITS) return null;
+        long value = Literals.parseLong(query, start, position);
+        skipSpace();
+        return value;
+    }
+
+    private boolean keyword(String keyword) {
+        if (!query.startsWith(keyword, position) || continuesToken(position + keyword.length())) return false;
+        position += keyword.length();
+        skipSpace();
+        return true;
+    }
+
+    private char peek() {
+        return position < query.length() ? query.charAt(position) : 0;
+    }
+
+    private boolean atEnd() {
+        return position == query.length();
+    }
+
+    private void skipSpace() {
+        while (position < query.length()) {
+            char ch = query.charAt(position);
+            if (ch == ' ' || ch == '\t' || ch == '\r' || ch == '\n') {
+                position++;
+            } else if (ch == '#') {
+                while (position < query.length() && query.charAt(position) != '\n') position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return whether the character at {@code index} would extend the token before it in the ANTLR lexer, which
+     * includes any non-ASCII character, since labels may contain them
+     */
+    private boolean continuesToken(int index) {
+        if (index >= query.length()) return false;
+        char ch = query.charAt(index);
+        return isLabelTail(ch) || ch == ':' || ch == '!' || ch == '@' || ch >= 0x80;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static boolean isLetter(char ch) {
+        return (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z');
+    }
+
+    private static boolean isVariableHead(char ch) {
+        return isLetter(ch) || isDigit(ch);
+    }
+
+    private static boolean isVariableTail(char ch) {
+        return isLetter(ch) || isDigit(ch) || ch == '_' || ch == '-';
+    }
+
+    private static boolean isLabelHead(char ch) {
+        return isLetter(ch);
+    }
+
+    private static boolean isLabelTail(char ch) {
+        return isLetter(ch) || isDigit(ch) || ch == '_' || ch == '-';
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+class FlightRecorderInstrumentation implements ParseInstrumentation {
+
+    static final FlightRecorderInstrumentation INSTANCE = new FlightRecorderInstrumentation();
+
+    private FlightRecorderInstrumentation() {}
+
+    @Override
+    public void parsed(Metrics metrics) {
+        ParseEvent event = new ParseEvent();
+        if (!event.isEnabled()) return;
+        event.inputLength = metrics.inputLength();
+        event.tokenCount = metrics.tokenCount();
+        event.lexTime = metrics.lexNanos();
+        event.parseTime = metrics.parseNanos();
+        event.fallback = metrics.fallback();
+        event.fallbackTime = metrics.fallbackNanos();
+        event.buildTime = metrics.buildNanos();
+        event.totalTime = metrics.totalNanos();
+        event.succeeded = metrics.succeeded();
+        event.commit();
+    }
+
+    @Name("com.vaticle.typeql.Parse")
+    @Label("TypeQL Parse")
+    @Category("TypeQL")
+    @Description("A call through the TypeQL parser")
+    static class ParseEvent extends Event {
+
+        @Label("Input Length")
+        @Description("Number of characters of input")
+        int inputLength;
+
+        @Label("Token Count")
+        int tokenCount;
+
+        @Label("Lex Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long lexTime;
+
+        @Label("Parse Time")
+        @Description("Time spent in the fast SLL parse")
+        @Timespan(Timespan.NANOSECONDS)
+        long parseTime;
+
+        @Label("Fallback")
+        @Description("Whether the fast parse failed and the input was parsed again to report syntax errors")
+        boolean fallback;
+
+        @Label("Fallback Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long fallbackTime;
+
+        @Label("Build Time")
+        @Description("Time spent visiting the parse tree to build the result")
+        @Timespan(Timespan.NANOSECONDS)
+        long buildTime;
+
+        @Label("Total Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long totalTime;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.grammar.TypeQLLexer;
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+
+import javax.annotation.Nullable;
+
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INPUT_LENGTH_LIMIT_EXCEEDED;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.NESTING_LIMIT_EXCEEDED;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.TOKEN_LIMIT_EXCEEDED;
+
+/**
+ * Wraps the lexer to enforce {@link ParseLimits} on the tokens it produces. Once a limit is exceeded, the input
+ * ends early, so that the parser stops without any exception passing through it, and the caller throws the
+ * {@link #exceeded()} error once the parser returns.
+ */
+class LimitedTokenSource implements TokenSource {
+
+    private static final int OPEN_BRACE = tokenType("'{'");
+    private static final int CLOSE_BRACE = tokenType("'}'");
+
+    private TokenSource lexer;
+    private ParseLimits limits;
+    private ParseDeadline deadline;
+    private int tokens;
+    private int lexed;
+    private int depth;
+    private TypeQLException exceeded;
+    private Token eof;
+
+    LimitedTokenSource() {
+        this.limits = ParseLimits.NONE;
+        this.deadline = ParseDeadline.NONE;
+    }
+
+    private static int tokenType(String literalName) {
+        for (int type = 1; type <= TypeQLLexer.VOCABULARY.getMaxTokenType(); type++) {
+            if (literalName.equals(TypeQLLexer.VOCABULARY.getLiteralName(type))) return type;
+        }
+        throw new IllegalStateException();
+    }
+
+    void reset(TokenSource lexer, ParseLimits limits) {
+        this.lexer = lexer;
+        this.limits = limits;
+        this.deadline = ParseDeadline.start(limits);
+        this.tokens = 0;
+        this.lexed = 0;
+        this.depth = 0;
+        this.exceeded = null;
+        this.eof = null;
+    }
+
+    ParseDeadline deadline() {
+        return deadline;
+    }
+
+    @Nullable
+    TypeQLException exceeded() {
+        return exceeded;
+    }
+
+    /**
+     * Checks the deadline and interrupt status of the parse, and ends the input early if either has been reached.
+     *
+     * @return whether a limit has been exceeded
+     */
+    boolean checkDeadline() {
+        if (exceeded == null) exceeded = deadline.exceeded();
+        return exceeded != null;
+    }
+
+    @Override
+    public Token nextToken() {
+        if (eof != null) return eof;
+        Token token = lexer.nextToken();
+        // Whitespace, comments and the end of file count towards the input length and the deadline, but are not
+        // tokens of the query
+        boolean queryToken = token.getType() != Token.EOF && token.getChannel() == Token.DEFAULT_CHANNEL;
+        if (token.getStopIndex() >= limits.maxInputLength()) {
+            exceeded = TypeQLException.of(INPUT_LENGTH_LIMIT_EXCEEDED.message(limits.maxInputLength()));
+        } else if (queryToken && ++tokens > limits.maxTokens()) {
+            exceeded = TypeQLException.of(TOKEN_LIMIT_EXCEEDED.message(limits.maxTokens()));
+        } else if (queryToken && token.getType() == OPEN_BRACE && ++depth > limits.maxNestingDepth()) {
+            exceeded = TypeQLException.of(NESTING_LIMIT_EXCEEDED.message(limits.maxNestingDepth()));
+        } else if (queryToken && token.getType() == CLOSE_BRACE) {
+            depth--;
+        }
+        if (exceeded == null && ++lexed % ParseDeadline.CHECK_INTERVAL == 0) checkDeadline();
+
+        if (exceeded == null) return token;
+        CommonToken eof = new CommonToken(Token.EOF, "<EOF>");
+        eof.setLine(token.getLine());
+        eof.setCharPositionInLine(token.getCharPositionInLine());
+        eof.setStartIndex(token.getStartIndex());
+        eof.setStopIndex(token.getStartIndex() - 1);
+        this.eof = eof;
+        return eof;
+    }
+
+    @Override
+    public int getLine() {
+        return lexer.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return lexer.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return lexer.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return lexer.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        lexer.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return lexer.getTokenFactory();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.ILLEGAL_GRAMMAR;
+
+/**
+ * Converts the text of literal tokens to values by reading their characters directly, rather than through
+ * {@link Long#parseLong(String)}, {@link Double#parseDouble(String)} or a {@link DateTimeFormatter}. Each method
+ * accepts the shape of the corresponding grammar token, and reports anything else, such as an out of range month,
+ * as {@code ILLEGAL_GRAMMAR} without throwing an exception internally.
+ */
+final class Literals {
+
+    private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int[] NANOS_PER_FRACTION_DIGITS = {0, 100_000_000, 10_000_000, 1_000_000};
+
+    private Literals() {}
+
+    /**
+     * Parses a {@code LONG_} token: an optional sign followed by decimal digits.
+     */
+    static long parseLong(CharSequence text, int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+            negative = text.charAt(position++) == '-';
+        }
+        if (position == end) throw illegal(text, start, end);
+        // Accumulate negatively, so that Long.MIN_VALUE can be represented
+        long value = 0;
+        while (position < end) {
+            int digit = digit(text.charAt(position++));
+            if (digit < 0 || value < (Long.MIN_VALUE + digit) / 10) throw illegal(text, start, end);
+            value = value * 10 - digit;
+        }
+        if (negative) return value;
+        else if (value == Long.MIN_VALUE) throw illegal(text, start, end);
+        else return -value;
+    }
+
+    /**
+     * Parses a {@code DOUBLE_} token: an optional sign, digits, a decimal point and digits. Values with at most
+     * {@value #MAX_EXACT_DOUBLE_DIGITS} significant digits are computed exactly by a single division, and longer
+     * values are left to {@link Double#parseDouble(String)} to round correctly.
+     */
+    static double parseDouble(CharSequence text, int start, int end) {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+            negative = text.charAt(position++) == '-';
+        }
+        long mantissa = 0;
+        int digits = 0, integerDigits = 0, fractionDigits = 0;
+        boolean point = false;
+        while (position < end) {
+            char ch = text.charAt(position++);
+            if (ch == '.' && !point && integerDigits > 0) {
+                point = true;
+                continue;
+            }
+            int digit = digit(ch);
+            if (digit < 0) throw illegal(text, start, end);
+            if (point) fractionDigits++;
+            else integerDigits++;
+            if (mantissa != 0 || digit != 0) digits++;
+            if (digits <= MAX_EXACT_DOUBLE_DIGITS) mantissa = mantissa * 10 + digit;
+        }
+        if (!point || fractionDigits == 0) throw illegal(text, start, end);
+        if (digits > MAX_EXACT_DOUBLE_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a {@code DATE_} token to the start of that day.
+     */
+    static LocalDateTime parseDate(CharSequence text, int start, int end) {
+        if (!isUnsignedYear(text, start)) return parseWithFormatter(text, start, end, false);
+        LocalDate date = date(text, start, end);
+        if (date == null || end != start + 10) throw illegal(text, start, end);
+        return date.atStartOfDay();
+    }
+
+    /**
+     * Parses a {@code DATETIME_} token, whose time has minutes and optionally seconds, with up to three fractional
+     * digits.
+     */
+    static LocalDateTime parseDateTime(CharSequence text, int start, int end) {
+        if (!isUnsignedYear(text, start)) return parseWithFormatter(text, start, end, true);
+        LocalDate date = date(text, start, end);
+        int position = start + 10;
+        if (date == null || end < position + 6 || text.charAt(position++) != 'T') throw illegal(text, start, end);
+
+        int hour = twoDigits(text, position);
+        int minute = text.charAt(position + 2) == ':' ? twoDigits(text, position + 3) : -1;
+        position += 5;
+        int second = 0, nanos = 0;
+        if (position < end) {
+            if (end < position + 3 || text.charAt(position) != ':') throw illegal(text, start, end);
+            second = twoDigits(text, position + 1);
+            position += 3;
+            if (position < end) {
+                int fractionDigits = end - position - 1;
+                if (text.charAt(position++) != '.' || fractionDigits < 1 || fractionDigits > 3) {
+                    throw illegal(text, start, end);
+                }
+                for (int scale = NANOS_PER_FRACTION_DIGITS[1]; position < end; scale /= 10) {
+                    int digit = digit(text.charAt(position++));
+                    if (digit < 0) throw illegal(text, start, end);
+                    nanos += digit * scale;
+                }
+            }
+        }
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            throw illegal(text, start, end);
+        }
+        return date.atTime(hour, minute, second, nanos);
+    }
+
+    private static boolean isUnsignedYear(CharSequence text, int start) {
+        char first = text.charAt(start);
+        return first != '+' && first != '-';
+    }
+
+    /**
+     * Reads a date with a four digit year from the first ten characters, or returns null if they are not a valid
+     * date.
+     */
+    private static LocalDate date(CharSequence text, int start, int end) {
+        if (end < start + 10 || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-') return null;
+        int century = twoDigits(text, start), yearOfCentury = twoDigits(text, start + 2);
+        int month = twoDigits(text, start + 5), day = twoDigits(text, start + 8);
+        if (century < 0 || yearOfCentury < 0 || month < 1 || month > 12 || day < 1) return null;
+        int year = century * 100 + yearOfCentury;
+        if (day > 28 && day > lengthOfMonth(year, month)) return null;
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Signed years may have any number of digits, so they are rare enough to leave to the ISO formatters.
+     */
+    private static LocalDateTime parseWithFormatter(CharSequence text, int start, int end, boolean time) {
+        String string = text.subSequence(start, end).toString();
+        try {
+            if (time) return LocalDateTime.parse(string, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            else return LocalDate.parse(string, DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(string));
+        }
+    }
+
+    private static int twoDigits(CharSequence text, int at) {
+        int tens = digit(text.charAt(at)), units = digit(text.charAt(at + 1));
+        return tens < 0 || units < 0 ? -1 : tens * 10 + units;
+    }
+
+    private static int digit(char ch) {
+        return ch >= '0' && ch <= '9' ? ch - '0' : -1;
+    }
+
+    private static TypeQLException illegal(CharSequence text, int start, int end) {
+        return TypeQLException.of(ILLEGAL_GRAMMAR.message(text.subSequence(start, end).toString()));
+    }
+}
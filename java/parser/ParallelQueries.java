@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Parses the segments of a {@link QueryScanner} on an {@link Executor}, and returns the queries in source order.
+ *
+ * Segments are parsed in batches, and only a bounded number of batches are in flight ahead of the consumer, so
+ * memory use stays bounded for scripts of any size. Batches are joined in source order, so if several batches
+ * fail, the syntax error of the earliest one in the script is the one thrown.
+ */
+class ParallelQueries<T extends TypeQLQuery> implements Iterator<T>, AutoCloseable {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final QueryScanner scanner;
+    private final Function<Source, Stream<T>> parser;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final ArrayDeque<CompletableFuture<List<T>>> inFlight;
+    private Iterator<T> batch;
+
+    ParallelQueries(QueryScanner scanner, Function<Source, Stream<T>> parser, Executor executor) {
+        this.scanner = scanner;
+        this.parser = parser;
+        this.executor = executor;
+        int parallelism = executor instanceof ForkJoinPool ?
+                ((ForkJoinPool) executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = 2 * parallelism;
+        this.inFlight = new ArrayDeque<>(maxInFlight);
+        this.batch = Collections.emptyIterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!batch.hasNext()) {
+            submit();
+            if (inFlight.isEmpty()) return false;
+            batch = join(inFlight.poll()).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return batch.next();
+    }
+
+    @Override
+    public void close() {
+        inFlight.forEach(future -> future.cancel(false));
+        inFlight.clear();
+        scanner.close();
+    }
+
+    private void submit() {
+        while (inFlight.size() < maxInFlight && scanner.hasNext()) {
+            List<Source> sources = new ArrayList<>(BATCH_SIZE);
+            while (sources.size() < BATCH_SIZE && scanner.hasNext()) sources.add(scanner.next());
+            inFlight.add(CompletableFuture.supplyAsync(() -> parse(sources), executor));
+        }
+    }
+
+    private List<T> parse(List<Source> sources) {
+        List<T> queries = new ArrayList<>();
+        for (Source source : sources) queries.addAll(parser.apply(source).collect(toList()));
+        return queries;
+    }
+
+    private List<T> join(CompletableFuture<List<T>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            inFlight.forEach(f -> f.cancel(false));
+            inFlight.clear();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            else throw e;
+        }
+    }
+}
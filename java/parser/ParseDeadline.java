@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.PARSE_DEADLINE_EXCEEDED;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.PARSE_INTERRUPTED;
+
+/**
+ * The deadline and interrupt policy of a single call through the ANTLR parser, taken from {@link ParseLimits} when
+ * the call starts. It is checked as tokens are lexed and as the parser enters rules and consumes tokens, and
+ * between the stages of the call that neither lex nor parse, such as building the query.
+ */
+class ParseDeadline {
+
+    static final ParseDeadline NONE = new ParseDeadline(null, 0, false);
+
+    // Reading the clock is not free, so the lexer and parser only check the deadline every so many steps
+    static final int CHECK_INTERVAL = 64;
+
+    private final Duration timeout;
+    private final long deadline;
+    private final boolean interruptible;
+
+    private ParseDeadline(@Nullable Duration timeout, long deadline, boolean interruptible) {
+        this.timeout = timeout;
+        this.deadline = deadline;
+        this.interruptible = interruptible;
+    }
+
+    static ParseDeadline start(ParseLimits limits) {
+        if (limits.timeout() == null && !limits.interruptible()) return NONE;
+        long deadline = limits.timeout() != null ? System.nanoTime() + limits.timeout().toNanos() : 0;
+        return new ParseDeadline(limits.timeout(), deadline, limits.interruptible());
+    }
+
+    boolean isNone() {
+        return this == NONE;
+    }
+
+    /**
+     * @return the error for the call, if it has run past its deadline or its thread has been interrupted
+     */
+    @Nullable
+    TypeQLException exceeded() {
+        if (timeout != null && System.nanoTime() - deadline > 0) {
+            return TypeQLException.of(PARSE_DEADLINE_EXCEEDED.message(timeout));
+        } else if (interruptible && Thread.currentThread().isInterrupted()) {
+            return TypeQLException.of(PARSE_INTERRUPTED.message());
+        } else {
+            return null;
+        }
+    }
+
+    void check() {
+        TypeQLException exceeded = exceeded();
+        if (exceeded != null) throw exceeded;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+/**
+ * Receives the metrics of every call through the ANTLR parser, for profiling where parse time goes. Set it with
+ * {@link Parser.Options#instrumentation(ParseInstrumentation)}. Implementations are called on the parsing thread,
+ * from any number of threads at once, and should return quickly.
+ */
+public interface ParseInstrumentation {
+
+    ParseInstrumentation NONE = metrics -> {};
+
+    void parsed(Metrics metrics);
+
+    /**
+     * Returns an instrumentation that emits a {@code com.vaticle.typeql.Parse} JDK Flight Recorder event for every
+     * call, which costs next to nothing when no recording is running.
+     */
+    static ParseInstrumentation flightRecorder() {
+        return FlightRecorderInstrumentation.INSTANCE;
+    }
+
+    /**
+     * Metrics of a single call through the parser. The input is lexed lazily as the parser needs its tokens, as it
+     * is without instrumentation, and the time spent lexing is subtracted from the stage that pulled the tokens.
+     * A parse that fails early may stop before lexing the whole input, in which case the input length and token
+     * count only cover the part that was lexed.
+     */
+    class Metrics {
+
+        private final int inputLength;
+        private final int tokenCount;
+        private final long lexNanos;
+        private final long parseNanos;
+        private final boolean fallback;
+        private final long fallbackNanos;
+        private final long buildNanos;
+        private final boolean succeeded;
+
+        Metrics(int inputLength, int tokenCount, long lexNanos, long parseNanos, boolean fallback, long fallbackNanos,
+                long buildNanos, boolean succeeded) {
+            this.inputLength = inputLength;
+            this.tokenCount = tokenCount;
+            this.lexNanos = lexNanos;
+            this.parseNanos = parseNanos;
+            this.fallback = fallback;
+            this.fallbackNanos = fallbackNanos;
+            this.buildNanos = buildNanos;
+            this.succeeded = succeeded;
+        }
+
+        /**
+         * @return the number of characters of input that were lexed
+         */
+        public int inputLength() {
+            return inputLength;
+        }
+
+        /**
+         * @return the number of tokens lexed from the input, including the end of file token
+         */
+        public int tokenCount() {
+            return tokenCount;
+        }
+
+        /**
+         * @return the time spent lexing, in whichever stage of the call the tokens were needed
+         */
+        public long lexNanos() {
+            return lexNanos;
+        }
+
+        /**
+         * @return the time spent in the fast SLL parse, which includes building the result when
+         * {@link Parser.Options#directBuild()} is enabled
+         */
+        public long parseNanos() {
+            return parseNanos;
+        }
+
+        /**
+         * @return whether the fast SLL parse failed, and the input was parsed again to report syntax errors
+         */
+        public boolean fallback() {
+            return fallback;
+        }
+
+        public long fallbackNanos() {
+            return fallbackNanos;
+        }
+
+        /**
+         * @return the time spent visiting the parse tree to build the result, which is zero when the result was
+         * built directly while parsing
+         */
+        public long buildNanos() {
+            return buildNanos;
+        }
+
+        public long totalNanos() {
+            return lexNanos + parseNanos + fallbackNanos + buildNanos;
+        }
+
+        /**
+         * @return whether the call returned a result, rather than throwing a syntax or semantic error
+         */
+        public boolean succeeded() {
+            return succeeded;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{inputLength=" + inputLength + ", tokenCount=" + tokenCount + ", lexNanos=" + lexNanos +
+                    ", parseNanos=" + parseNanos + ", fallback=" + fallback + ", fallbackNanos=" + fallbackNanos +
+                    ", buildNanos=" + buildNanos + ", succeeded=" + succeeded + "}";
+        }
+    }
+}
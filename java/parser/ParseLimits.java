@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+/**
+ * Immutable limits on the input of a single call through the ANTLR parser, set with
+ * {@link Parser.Options#limits(ParseLimits)}, so that a single pathological input cannot hold a parsing thread
+ * for long. The input length is checked before any of the input is lexed, the limits are checked again as tokens
+ * are lexed, with whitespace and comments counting towards the input length, and the timeout and interrupt status
+ * are also checked as the parser runs, including when a failed parse is retried to report its errors, and once
+ * the query is built. A call that exceeds one of them throws a
+ * {@link com.vaticle.typeql.lang.common.exception.TypeQLException} naming the limit.
+ */
+public class ParseLimits {
+
+    public static final ParseLimits NONE = new ParseLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE,
+                                                           null, false);
+
+    private final int maxInputLength;
+    private final int maxTokens;
+    private final int maxNestingDepth;
+    private final Duration timeout;
+    private final boolean interruptible;
+
+    private ParseLimits(int maxInputLength, int maxTokens, int maxNestingDepth, @Nullable Duration timeout,
+                        boolean interruptible) {
+        this.maxInputLength = maxInputLength;
+        this.maxTokens = maxTokens;
+        this.maxNestingDepth = maxNestingDepth;
+        this.timeout = timeout;
+        this.interruptible = interruptible;
+    }
+
+    public static ParseLimits none() {
+        return NONE;
+    }
+
+    /**
+     * Limits the number of characters of input, including whitespace and comments.
+     */
+    public ParseLimits maxInputLength(int maxInputLength) {
+        return new ParseLimits(maxInputLength, maxTokens, maxNestingDepth, timeout, interruptible);
+    }
+
+    /**
+     * Limits the number of tokens lexed from the input, not counting whitespace and comments.
+     */
+    public ParseLimits maxTokens(int maxTokens) {
+        return new ParseLimits(maxInputLength, maxTokens, maxNestingDepth, timeout, interruptible);
+    }
+
+    /**
+     * Limits how deeply patterns may be nested in curly braces, as in disjunctions, negations and rules.
+     */
+    public ParseLimits maxNestingDepth(int maxNestingDepth) {
+        return new ParseLimits(maxInputLength, maxTokens, maxNestingDepth, timeout, interruptible);
+    }
+
+    /**
+     * Limits the wall-clock time that lexing and parsing may take, from the start of the call.
+     */
+    public ParseLimits timeout(Duration timeout) {
+        return new ParseLimits(maxInputLength, maxTokens, maxNestingDepth, timeout, interruptible);
+    }
+
+    /**
+     * Aborts parsing when the parsing thread is interrupted, leaving the thread's interrupt status set.
+     */
+    public ParseLimits interruptible(boolean interruptible) {
+        return new ParseLimits(maxInputLength, maxTokens, maxNestingDepth, timeout, interruptible);
+    }
+
+    public int maxInputLength() {
+        return maxInputLength;
+    }
+
+    public int maxTokens() {
+        return maxTokens;
+    }
+
+    public int maxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    @Nullable
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public boolean interruptible() {
+        return interruptible;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * Times the stages of a single call through the parser for a {@link ParseInstrumentation}. Without
+ * instrumentation, a shared recorder is used whose methods do nothing.
+ */
+class ParseRecorder {
+
+    private static final ParseRecorder DISABLED = new ParseRecorder(ParseInstrumentation.NONE);
+
+    private final ParseInstrumentation instrumentation;
+    private long mark;
+    private int inputLength;
+    private int tokenCount;
+    private long lexNanos;
+    private long lexNanosAtMark;
+    private long parseNanos;
+    private boolean fallback;
+    private long fallbackNanos;
+    private long buildNanos;
+    private boolean succeeded;
+
+    private ParseRecorder(ParseInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    static ParseRecorder of(ParseInstrumentation instrumentation) {
+        if (instrumentation == ParseInstrumentation.NONE) return DISABLED;
+        ParseRecorder recorder = new ParseRecorder(instrumentation);
+        recorder.mark = System.nanoTime();
+        return recorder;
+    }
+
+    private boolean disabled() {
+        return this == DISABLED;
+    }
+
+    /**
+     * @return the time since the last lap, less the time spent lexing in between
+     */
+    private long lap() {
+        long now = System.nanoTime();
+        long lap = now - mark - (lexNanos - lexNanosAtMark);
+        mark = now;
+        lexNanosAtMark = lexNanos;
+        return lap;
+    }
+
+    /**
+     * Wraps {@code lexer} so that the time spent in it is recorded as lexing, whichever stage pulls the tokens.
+     */
+    TokenSource time(TokenSource lexer) {
+        if (disabled()) return lexer;
+        return new TimedTokenSource(this, lexer);
+    }
+
+    void lexed(Token token, long nanos) {
+        lexNanos += nanos;
+        tokenCount++;
+        // The end of file token starts right after the last character of input
+        inputLength = token.getType() == Token.EOF ? token.getStartIndex() : token.getStopIndex() + 1;
+    }
+
+    void parsed() {
+        if (disabled()) return;
+        parseNanos = lap();
+    }
+
+    void fellBack() {
+        if (disabled()) return;
+        fallback = true;
+        fallbackNanos = lap();
+    }
+
+    void built() {
+        if (disabled()) return;
+        buildNanos = lap();
+        succeeded = true;
+    }
+
+    void report() {
+        if (disabled()) return;
+        instrumentation.parsed(new ParseInstrumentation.Metrics(
+                inputLength, tokenCount, lexNanos, parseNanos, fallback, fallbackNanos, buildNanos, succeeded
+        ));
+    }
+}
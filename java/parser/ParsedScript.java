@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.Definable;
+import com.vaticle.typeql.lang.query.TypeQLDefine;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import com.vaticle.typeql.lang.query.TypeQLUndefine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.vaticle.typedb.common.collection.Collections.list;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.DEFINE;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.UNDEFINE;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The queries parsed from a script, such as the contents of an editor or notebook cell, which can be updated with
+ * {@link #edit(int, int, String)} without parsing the whole script again.
+ *
+ * The script is split into segments of whole queries, like {@link Parser#parseQueriesEOF(java.io.Reader)}, and a
+ * {@code define} or {@code undefine} segment is further split into its definables. An edit only re-parses the
+ * segments it touches, and within a {@code define} or {@code undefine}, only the definables whose text changed.
+ * Every other query and definable is the same object as before the edit. A segment that fails to parse
+ * contributes its errors to {@link #errors()} instead of queries, without affecting the other segments.
+ */
+public class ParsedScript {
+
+    private final Parser parser;
+    private final String text;
+    private final List<Part> parts;
+    private final List<TypeQLQuery> queries;
+    private final List<ValidationError> errors;
+
+    private ParsedScript(Parser parser, String text, List<Part> parts) {
+        this.parser = parser;
+        this.text = text;
+        this.parts = parts;
+        List<TypeQLQuery> queries = new ArrayList<>();
+        List<ValidationError> errors = new ArrayList<>();
+        for (Part part : parts) {
+            queries.addAll(part.queries);
+            errors.addAll(part.errors);
+        }
+        this.queries = Collections.unmodifiableList(queries);
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    static ParsedScript parse(Parser parser, String text) {
+        List<Part> parts = new ArrayList<>();
+        QueryScanner scanner = QueryScanner.of(text, 0, 1, 0);
+        int start = 0;
+        while (scanner.hasNext()) {
+            Source segment = scanner.next();
+            int end = (int) scanner.end();
+            parts.add(Part.parse(parser, segment, text, start, end, Collections.emptyMap()));
+            start = end;
+        }
+        return new ParsedScript(parser, text, parts);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    /**
+     * @return the queries of every segment of the script that parsed successfully, in source order
+     */
+    public List<TypeQLQuery> queries() {
+        return queries;
+    }
+
+    /**
+     * @return the syntax and semantic errors of every segment of the script that failed to parse, in source order
+     */
+    public List<ValidationError> errors() {
+        return errors;
+    }
+
+    /**
+     * Applies an edit to the text of the script, and re-parses only the parts of the script it affects.
+     * This script is left unchanged.
+     *
+     * @param offset        the position in the text at which the edit starts
+     * @param removedLength the number of characters removed from the text at {@code offset}
+     * @param inserted      the text inserted at {@code offset}, in place of the removed characters
+     * @return the script with the edit applied
+     */
+    public ParsedScript edit(int offset, int removedLength, String inserted) {
+        Objects.checkFromIndexSize(offset, removedLength, text.length());
+        String edited = text.substring(0, offset) + inserted + text.substring(offset + removedLength);
+        int delta = inserted.length() - removedLength;
+        int editEnd = offset + inserted.length();
+
+        // Segments that end before the edit are unchanged. Scanning resumes from the segment before the one that
+        // contains the edit, as the edit may break the keyword that the following segment starts with, joining
+        // the two segments, while the start of the segment before the edit is still where a segment starts
+        int first = 0;
+        while (first < parts.size() && parts.get(first).end < offset) first++;
+        if (first > 0) first--;
+        List<Part> edits = new ArrayList<>(parts.subList(0, first));
+        Map<String, List<Definable>> definables = definables(first, offset + removedLength);
+
+        int start = first < parts.size() ? parts.get(first).start : 0;
+        int line = first < parts.size() ? parts.get(first).line : 1;
+        int column = first < parts.size() ? parts.get(first).column : 0;
+        QueryScanner scanner = QueryScanner.of(edited, start, line, column);
+        int next = first;
+        while (scanner.hasNext()) {
+            Source segment = scanner.next();
+            int end = (int) scanner.end();
+            Part unchanged = next < parts.size() ? parts.get(next) : null;
+            if (unchanged != null && unchanged.start == start && unchanged.end == end && end <= offset) {
+                edits.add(unchanged);
+            } else {
+                edits.add(Part.parse(parser, segment, edited, start, end, definables));
+            }
+            start = end;
+            if (end < editEnd) continue;
+
+            // Once a segment ends where one of the old segments started, after the edit, the rest of the script
+            // splits into the same segments as before, so they are kept and only moved
+            while (next < parts.size() && parts.get(next).start < end - delta) next++;
+            if (next < parts.size() && parts.get(next).start == end - delta) {
+                Part resumed = parts.get(next);
+                int lineDelta = scanner.endLine() - resumed.line;
+                int columnDelta = scanner.endColumn() - resumed.column;
+                for (Part part : parts.subList(next, parts.size())) {
+                    edits.add(part.moved(parser, edited, delta, lineDelta, part.line == resumed.line ? columnDelta : 0));
+                }
+                break;
+            }
+        }
+        return new ParsedScript(parser, edited, edits);
+    }
+
+    /**
+     * @return the definables of the segments from {@code first} that start before {@code end}, keyed by their text,
+     * so that definables that an edit did not change can be kept
+     */
+    private Map<String, List<Definable>> definables(int first, int end) {
+        Map<String, List<Definable>> definables = new HashMap<>();
+        for (int i = first; i < parts.size() && parts.get(i).start <= end; i++) {
+            Part part = parts.get(i);
+            for (Chunk chunk : part.chunks) {
+                definables.put(text.substring(part.start + chunk.start, part.start + chunk.end), chunk.definables);
+            }
+        }
+        return definables;
+    }
+
+    private static class Part {
+
+        private final int start;
+        private final int end;
+        private final int line;
+        private final int column;
+        private final List<TypeQLQuery> queries;
+        private final List<ValidationError> errors;
+        private final List<Chunk> chunks;
+
+        private Part(int start, int end, int line, int column, List<TypeQLQuery> queries,
+                     List<ValidationError> errors, List<Chunk> chunks) {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.column = column;
+            this.queries = queries;
+            this.errors = errors;
+            this.chunks = chunks;
+        }
+
+        private static Part parse(Parser parser, Source segment, String text, int start, int end,
+                                  Map<String, List<Definable>> definables) {
+            Part part = parseDefinables(segment, text, start, end, parser, definables);
+            if (part != null) return part;
+            try {
+                List<TypeQLQuery> queries = parser.<TypeQLQuery>parseQueriesEOF(segment).collect(toList());
+                return new Part(start, end, segment.line(), segment.column(), queries, list(), list());
+            } catch (TypeQLException e) {
+                List<ValidationError> errors = parser.validateQueriesEOF(segment);
+                if (errors.isEmpty()) {
+                    errors = list(ValidationError.semantic(segment.line(), segment.column(), e.getMessage()));
+                }
+                return new Part(start, end, segment.line(), segment.column(), list(), errors, list());
+            }
+        }
+
+        /**
+         * Parses a {@code define} or {@code undefine} segment one definable at a time, reusing the definables of
+         * any definable whose text is unchanged.
+         *
+         * @return the parsed segment, or null if it is not a single {@code define} or {@code undefine} query whose
+         * definables all parse, in which case it should be parsed as a whole to report its errors
+         */
+        private static Part parseDefinables(Source segment, String text, int start, int end, Parser parser,
+                                            Map<String, List<Definable>> reusable) {
+            int position = skipSpace(text, start, end);
+            boolean define = text.startsWith(DEFINE.toString(), position);
+            if (!define && !text.startsWith(UNDEFINE.toString(), position)) return null;
+            position += define ? DEFINE.toString().length() : UNDEFINE.toString().length();
+            if (position < end && isWordChar(text.charAt(position))) return null;
+
+            List<Chunk> chunks = new ArrayList<>();
+            List<Definable> definables = new ArrayList<>();
+            int chunkStart = position;
+            try {
+                for (int chunkEnd = nextChunkEnd(text, chunkStart, end); chunkEnd > 0;
+                     chunkEnd = nextChunkEnd(text, chunkStart, end)) {
+                    String chunkText = text.substring(chunkStart, chunkEnd);
+                    List<Definable> parsed = reusable.get(chunkText);
+                    if (parsed == null) parsed = parser.parseDefinablesEOF(chunkText);
+                    chunks.add(new Chunk(chunkStart - start, chunkEnd - start, parsed));
+                    definables.addAll(parsed);
+                    chunkStart = chunkEnd;
+                }
+                if (chunks.isEmpty() || skipSpace(text, chunkStart, end) != end) return null;
+                TypeQLQuery query = define ? new TypeQLDefine(definables) : new TypeQLUndefine(definables);
+                return new Part(start, end, segment.line(), segment.column(), list(query), list(), chunks);
+            } catch (TypeQLException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return this segment moved to where it is in the edited text, which is parsed again only if it reported
+         * errors, as their positions would have moved with it
+         */
+        private Part moved(Parser parser, String text, int delta, int lineDelta, int columnDelta) {
+            if (delta == 0 && lineDelta == 0 && columnDelta == 0) return this;
+            else if (errors.isEmpty()) {
+                return new Part(start + delta, end + delta, line + lineDelta, column + columnDelta,
+                                queries, errors, chunks);
+            } else {
+                Source segment = Source.of(text.substring(start + delta, end + delta), line + lineDelta,
+                                           column + columnDelta);
+                return parse(parser, segment, text, start + delta, end + delta, Collections.emptyMap());
+            }
+        }
+
+        /**
+         * @return the position just after the next {@code ;} from {@code from} that is outside strings, comments
+         * and braces, or -1 if there is none before {@code end}
+         */
+        private static int nextChunkEnd(String text, int from, int end) {
+            int depth = 0;
+            for (int i = from; i < end; i++) {
+                char ch = text.charAt(i);
+                if (ch == '#') {
+                    while (i < end && text.charAt(i) != '\n') i++;
+                } else if (ch == '"' || ch == '\'') {
+                    for (i++; i < end && text.charAt(i) != ch; i++) {
+                        if (text.charAt(i) == '\\') i++;
+                    }
+                } else if (ch == '{') {
+                    depth++;
+                } else if (ch == '}') {
+                    depth--;
+                } else if (ch == ';' && depth == 0) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private static int skipSpace(String text, int from, int end) {
+            int position = from;
+            while (position < end) {
+                char ch = text.charAt(position);
+                if (ch == '#') {
+                    while (position < end && text.charAt(position) != '\n') position++;
+                } else if (Character.isWhitespace(ch)) {
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            return position;
+        }
+
+        private static boolean isWordChar(char ch) {
+            return Character.isLetterOrDigit(ch) || ch == '_' || ch == '-';
+        }
+    }
+
+    /**
+     * A definable of a {@code define} or {@code undefine} segment, with its position relative to the segment.
+     */
+    private static class Chunk {
+
+        private final int start;
+        private final int end;
+        private final List<Definable> definables;
+
+        private Chunk(int start, int end, List<Definable> definables) {
+            this.start = start;
+            this.end = end;
+            this.definables = definables;
+        }
+    }
+}
@@ -50,35 +50,44 @@ import com.vaticle.typeql.lang.query.TypeQLQuery;
 import com.vaticle.typeql.lang.query.TypeQLUndefine;
 import com.vaticle.typeql.lang.query.TypeQLUpdate;
 import com.vaticle.typeql.lang.query.builder.Sortable;
-import org.antlr.v4.runtime.ANTLRErrorStrategy;
 import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.RuleContext;
-import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
-import javax.annotation.Nullable;
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typedb.common.collection.Collections.pair;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.ILLEGAL_GRAMMAR;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.ILLEGAL_STATE;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INPUT_LENGTH_LIMIT_EXCEEDED;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.UNBOUND_PARAMETER;
 import static com.vaticle.typeql.lang.common.util.Strings.unescapeRegex;
 import static com.vaticle.typeql.lang.pattern.variable.UnboundVariable.hidden;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
 import static java.util.stream.Collectors.toList;
 import static org.antlr.v4.runtime.atn.PredictionMode.LL_EXACT_AMBIG_DETECTION;
 import static org.antlr.v4.runtime.atn.PredictionMode.SLL;
@@ -88,7 +97,17 @@ import static org.antlr.v4.runtime.atn.PredictionMode.SLL;
  */
 public class Parser extends TypeQLBaseVisitor {
 
-    private static final Set<String> TYPEQL_KEYWORDS = getKeywords();
+    static final Set<String> TYPEQL_KEYWORDS = getKeywords();
+
+    private final Options options;
+
+    public Parser() {
+        this(Options.DEFAULT);
+    }
+
+    public Parser(Options options) {
+        this.options = options;
+    }
 
     private static Set<String> getKeywords() {
         HashSet<String> keywords = new HashSet<>();
@@ -107,54 +126,350 @@ public class Parser extends TypeQLBaseVisitor {
         return new TypeQLLexer(CharStreams.fromString(string));
     }
 
-    private <CONTEXT extends ParserRuleContext, RETURN> RETURN parse(
-            String rawTypeQLString, Function<TypeQLParser, CONTEXT> rule, Function<CONTEXT, RETURN> visitor
-    ) {
+    private static Source source(String rawTypeQLString) {
         if (rawTypeQLString == null) throw TypeQLException.of("Query String is NULL");
         String typeQLString = rawTypeQLString.stripTrailing();
         if (typeQLString.isEmpty()) throw TypeQLException.of("Query String is empty or blank");
+        return Source.of(typeQLString);
+    }
+
+    private <CONTEXT extends ParserRuleContext, RETURN> RETURN parse(
+            String rawTypeQLString, Function<TypeQLParser, CONTEXT> rule, Function<CONTEXT, RETURN> visitor
+    ) {
+        return parse(source(rawTypeQLString), rule, visitor);
+    }
+
+    private <CONTEXT extends ParserRuleContext, RETURN> RETURN parse(
+            Source source, Function<TypeQLParser, CONTEXT> rule, Function<CONTEXT, RETURN> visitor
+    ) {
+        return parseWith(source, rule, rule, visitor);
+    }
+
+    /**
+     * Parses like {@link #parse(Source, Function, Function)}, but builds the result while parsing instead of
+     * visiting a parse tree afterwards. See {@link DirectBuilder} for the shape of the result passed to
+     * {@code result}.
+     */
+    private <RETURN> RETURN parseDirect(
+            Source source, Function<TypeQLParser, ? extends ParserRuleContext> rule, Function<Object, RETURN> result
+    ) {
+        return parseWith(source, rule, parser -> {
+            DirectBuilder builder = DirectBuilder.attach(this, parser);
+            rule.apply(parser);
+            return builder.result();
+        }, result);
+    }
 
+    private <PARSED, RETURN> RETURN parseWith(
+            Source source, Function<TypeQLParser, ? extends ParserRuleContext> rule,
+            Function<TypeQLParser, PARSED> parse, Function<PARSED, RETURN> build
+    ) {
+        ParseRecorder recorder = ParseRecorder.of(options.instrumentation());
         try {
-            // BailErrorStrategy + SLL is a very fast parsing strategy for queries
-            // that are expected to be correct. However, it may not be able to
-            // provide detailed/useful error message, if at all.
-            return visitor.apply(parseContext(rule, typeQLString, new BailErrorStrategy(), SLL, null));
-        } catch (ParseCancellationException e) {
-            // We parse the query one more time, with "strict strategy" :
-            // DefaultErrorStrategy + LL_EXACT_AMBIG_DETECTION
-            // This was not set to default parsing strategy, but it is useful
-            // to produce detailed/useful error message
-            ErrorListener errorListener = ErrorListener.of(typeQLString);
-            parseContext(rule, typeQLString, new DefaultErrorStrategy(), LL_EXACT_AMBIG_DETECTION, errorListener);
-            throw TypeQLException.of(errorListener.toString());
+            PARSED parsed;
+            ParseDeadline deadline;
+            ParsingContext context = ParsingContext.acquire();
+            try {
+                checkInputLength(source);
+                TypeQLParser parser = context.reset(source, new BailErrorStrategy(), SLL, options, recorder);
+                // BailErrorStrategy + SLL is a very fast parsing strategy for queries
+                // that are expected to be correct. However, it may not be able to
+                // provide detailed/useful error message, if at all.
+                parsed = parse.apply(parser);
+                recorder.parsed();
+                checkLimits(context);
+                deadline = context.deadline();
+            } catch (ParseCancellationException e) {
+                recorder.parsed();
+                checkLimits(context);
+                TypeQLException error = syntaxError(context, rule, source, e);
+                recorder.fellBack();
+                throw error;
+            } finally {
+                context.release();
+            }
+            RETURN result = build.apply(parsed);
+            deadline.check();
+            recorder.built();
+            return result;
+        } finally {
+            recorder.report();
         }
     }
 
-    private <CONTEXT extends ParserRuleContext> CONTEXT parseContext(
-            Function<TypeQLParser, CONTEXT> rule,
-            String typeQLString, ANTLRErrorStrategy errorHandlingStrategy, PredictionMode prediction,
-            @Nullable ErrorListener errorListener
+    /**
+     * Rejects an input that is longer than the input length limit before any of it is lexed, so that a long run of
+     * whitespace, comments or a single long token cannot pass the limit while it is being lexed.
+     */
+    private void checkInputLength(Source source) {
+        int maxInputLength = options.limits().maxInputLength();
+        if (source.longerThan(maxInputLength)) {
+            throw TypeQLException.of(INPUT_LENGTH_LIMIT_EXCEEDED.message(maxInputLength));
+        }
+    }
+
+    private static void checkLimits(ParsingContext context) {
+        TypeQLException exceeded = context.limitExceeded();
+        if (exceeded != null) throw exceeded;
+    }
+
+    private TypeQLException syntaxError(
+            ParsingContext context, Function<TypeQLParser, ? extends ParserRuleContext> rule, Source source,
+            ParseCancellationException cancellation
     ) {
-        TypeQLLexer lexer = lexer(typeQLString);
-        lexer.removeErrorListeners();
-        if (errorListener != null) lexer.addErrorListener(errorListener);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        TypeQLParser parser = new TypeQLParser(tokens);
-        parser.removeErrorListeners();
-        if (errorListener != null) parser.addErrorListener(errorListener);
-        parser.setErrorHandler(errorHandlingStrategy);
-        parser.getInterpreter().setPredictionMode(prediction);
-        return rule.apply(parser);
+        return TypeQLException.of(syntaxErrors(context, rule, source, cancellation).toString());
+    }
+
+    private ErrorListener syntaxErrors(
+            ParsingContext context, Function<TypeQLParser, ? extends ParserRuleContext> rule, Source source,
+            ParseCancellationException cancellation
+    ) {
+        ErrorListener errorListener = ErrorListener.of(source.text(), source.line() - 1, source.column());
+        try {
+            if (options.cheapErrors() && cancellation.getCause() instanceof RecognitionException) {
+                // Report only the error that stopped the first pass, with the message ANTLR would have given it
+                TypeQLParser parser = context.retry(new DefaultErrorStrategy(), SLL, errorListener);
+                new DefaultErrorStrategy().reportError(parser, (RecognitionException) cancellation.getCause());
+            } else {
+                // We parse the query one more time, with "strict strategy" :
+                // DefaultErrorStrategy + LL_EXACT_AMBIG_DETECTION
+                // This was not set to default parsing strategy, but it is useful
+                // to produce detailed/useful error message. The tokens lexed by
+                // the first pass are reused rather than lexed again.
+                rule.apply(context.retry(new DefaultErrorStrategy(), LL_EXACT_AMBIG_DETECTION, errorListener));
+            }
+        } catch (ParseCancellationException e) {
+            // The retry is only cancelled once a limit is exceeded
+            checkLimits(context);
+            throw e;
+        }
+        // A limit exceeded during the retry ends its input early, which must not be reported as a syntax error
+        checkLimits(context);
+        return errorListener;
     }
 
     @SuppressWarnings("unchecked")
     public <T extends TypeQLQuery> T parseQueryEOF(String queryString) {
+        if (options.fastPath() && queryString != null && queryString.length() <= options.limits().maxInputLength()) {
+            TypeQLQuery query = FastParser.parse(queryString);
+            if (query != null) return (T) query;
+        }
+        if (options.directBuild()) {
+            return (T) parseDirect(source(queryString), TypeQLParser::eof_query, DirectBuilder::unwrap);
+        }
         return (T) parse(queryString, TypeQLParser::eof_query, this::visitEof_query);
     }
 
-    @SuppressWarnings("unchecked")
     public <T extends TypeQLQuery> Stream<T> parseQueriesEOF(String queryString) {
-        return (Stream<T>) parse(queryString, TypeQLParser::eof_queries, this::visitEof_queries);
+        return parseQueriesEOF(source(queryString));
+    }
+
+    /**
+     * Parses a script of queries from {@code reader} one query at a time, so that memory use is bounded by the
+     * largest query in the script rather than by the whole script. Syntax errors report line numbers relative
+     * to the start of the script. The reader is closed when the returned stream is closed.
+     */
+    public <T extends TypeQLQuery> Stream<T> parseQueriesEOF(Reader reader) {
+        return parseQueriesEOF(QueryScanner.of(reader));
+    }
+
+    /**
+     * Parses a UTF-8 script file one query at a time, like {@link #parseQueriesEOF(Reader)}, but reads the
+     * queries directly from a memory-mapped view of the file rather than copying them onto the heap.
+     * The file is closed when the returned stream is closed.
+     */
+    public <T extends TypeQLQuery> Stream<T> parseQueriesEOF(Path path) throws IOException {
+        return parseQueriesEOF(QueryScanner.of(path));
+    }
+
+    /**
+     * Parses a script of queries from {@code reader} like {@link #parseQueriesEOF(Reader)}, but parses batches of
+     * queries concurrently on {@code executor}, such as {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * Queries are still returned in source order, and a syntax error is thrown for the earliest invalid query.
+     */
+    public <T extends TypeQLQuery> Stream<T> parseQueriesEOF(Reader reader, Executor executor) {
+        return parseQueriesEOF(QueryScanner.of(reader), executor);
+    }
+
+    /**
+     * Parses a UTF-8 script file like {@link #parseQueriesEOF(Path)}, but parses batches of queries concurrently
+     * on {@code executor}, as {@link #parseQueriesEOF(Reader, Executor)} does.
+     */
+    public <T extends TypeQLQuery> Stream<T> parseQueriesEOF(Path path, Executor executor) throws IOException {
+        return parseQueriesEOF(QueryScanner.of(path), executor);
+    }
+
+    /**
+     * Parses a single query like {@link #parseQueryEOF(String)}, but on {@link #defaultExecutor()} rather than on
+     * the calling thread. A syntax error completes the returned future exceptionally.
+     */
+    public <T extends TypeQLQuery> CompletableFuture<T> parseQueryEOFAsync(String queryString) {
+        return parseQueryEOFAsync(queryString, defaultExecutor());
+    }
+
+    /**
+     * Parses a single query like {@link #parseQueryEOF(String)}, but on {@code executor} rather than on the
+     * calling thread. A syntax error completes the returned future exceptionally.
+     */
+    public <T extends TypeQLQuery> CompletableFuture<T> parseQueryEOFAsync(String queryString, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.<T>parseQueryEOF(queryString), executor);
+    }
+
+    /**
+     * Publishes the queries of a script read from {@code reader} as they are parsed on {@link #defaultExecutor()}.
+     * See {@link #parseQueriesEOFAsync(Reader, Executor)}.
+     */
+    public <T extends TypeQLQuery> Flow.Publisher<T> parseQueriesEOFAsync(Reader reader) {
+        return parseQueriesEOFAsync(reader, defaultExecutor());
+    }
+
+    /**
+     * Publishes the queries of a script read from {@code reader} as they are parsed on {@code executor}. The script
+     * is parsed one query at a time, like {@link #parseQueriesEOF(Reader)}, and only as far as the subscriber has
+     * requested, so a slow subscriber holds back parsing rather than letting parsed queries accumulate. A syntax
+     * error is signalled to the subscriber through {@link Flow.Subscriber#onError(Throwable)}. The publisher
+     * accepts a single subscriber, and the reader is closed once the subscription completes, fails or is cancelled.
+     */
+    public <T extends TypeQLQuery> Flow.Publisher<T> parseQueriesEOFAsync(Reader reader, Executor executor) {
+        return new QueryPublisher<>(() -> parseQueriesEOF(reader), executor);
+    }
+
+    /**
+     * The executor used by the asynchronous parse methods when none is given: {@link ForkJoinPool#commonPool()}.
+     * Parsing is bound by the processor rather than by blocking, so a pool bounded by the number of processors
+     * runs it as fast as more threads would, and each of its threads keeps its own lexer and parser across
+     * parses. Virtual threads may be passed as the executor instead, where many parses wait on slow readers;
+     * they then share a small pool of lexers and parsers, which costs some contention over the pool.
+     */
+    public static Executor defaultExecutor() {
+        return ForkJoinPool.commonPool();
+    }
+
+    private <T extends TypeQLQuery> Stream<T> parseQueriesEOF(QueryScanner scanner, Executor executor) {
+        ParallelQueries<T> queries = new ParallelQueries<>(scanner, this::<T>parseQueriesEOF, executor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(queries, ORDERED | NONNULL), false)
+                .onClose(queries::close);
+    }
+
+    private <T extends TypeQLQuery> Stream<T> parseQueriesEOF(QueryScanner scanner) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scanner, ORDERED | NONNULL), false)
+                .flatMap(segment -> this.<T>parseQueriesEOF(segment))
+                .onClose(scanner::close);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends TypeQLQuery> Stream<T> parseQueriesEOF(Source source) {
+        if (options.directBuild()) {
+            return parseDirect(source, TypeQLParser::eof_queries, queries -> ((List<?>) queries).stream()
+                    .map(query -> (T) DirectBuilder.unwrap(query)));
+        }
+        return (Stream<T>) parse(source, TypeQLParser::eof_queries, this::visitEof_queries);
+    }
+
+    /**
+     * Parses a script of queries into a {@link ParsedScript}, which can then be edited without parsing the whole
+     * script again. Segments of the script that fail to parse are reported as errors rather than thrown.
+     */
+    public ParsedScript parseScriptEOF(String script) {
+        return ParsedScript.parse(this, script);
+    }
+
+    /**
+     * Checks that {@code queryString} is a syntactically well-formed query, by running only the lexer and the parser,
+     * without building a parse tree or the query itself. Errors that are only raised when the query is built, such
+     * as variables that are out of scope, are not reported.
+     *
+     * @return the syntax errors in the query, which is empty if the query is well-formed
+     */
+    public List<ValidationError> validateSyntaxEOF(String queryString) {
+        Source source = source(queryString);
+        ParsingContext context = ParsingContext.acquire();
+        try {
+            checkInputLength(source);
+            TypeQLParser parser = context.reset(source, new BailErrorStrategy(), SLL, options);
+            parser.setBuildParseTree(false);
+            parser.eof_query();
+            checkLimits(context);
+            return Collections.emptyList();
+        } catch (ParseCancellationException e) {
+            checkLimits(context);
+            return syntaxErrors(context, TypeQLParser::eof_query, source, e).errors();
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Validates a script of queries from {@code reader} in a single streaming pass, returning every syntax error
+     * and every error raised when building a syntactically valid query, in source order. After a syntax error,
+     * validation resumes at the next query boundary the script can be split at, so memory use is bounded by the
+     * largest query in the script. The reader is closed when the returned stream is closed.
+     */
+    public Stream<ValidationError> validateQueriesEOF(Reader reader) {
+        return validateQueriesEOF(QueryScanner.of(reader));
+    }
+
+    /**
+     * Validates a UTF-8 script file like {@link #validateQueriesEOF(Reader)}, reading the queries from a
+     * memory-mapped view of the file. The file is closed when the returned stream is closed.
+     */
+    public Stream<ValidationError> validateQueriesEOF(Path path) throws IOException {
+        return validateQueriesEOF(QueryScanner.of(path));
+    }
+
+    private Stream<ValidationError> validateQueriesEOF(QueryScanner scanner) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scanner, ORDERED | NONNULL), false)
+                .flatMap(segment -> validateQueriesEOF(segment).stream())
+                .onClose(scanner::close);
+    }
+
+    List<ValidationError> validateQueriesEOF(Source source) {
+        TypeQLParser.Eof_queriesContext queries = null;
+        ParseDeadline deadline;
+        ParsingContext context = ParsingContext.acquire();
+        try {
+            checkInputLength(source);
+            ParseCancellationException cancellation = null;
+            try {
+                queries = context.reset(source, new BailErrorStrategy(), SLL, options).eof_queries();
+            } catch (ParseCancellationException e) {
+                cancellation = e;
+            }
+            checkLimits(context);
+            if (cancellation != null) {
+                return syntaxErrors(context, TypeQLParser::eof_queries, source, cancellation).errors();
+            }
+            deadline = context.deadline();
+        } catch (TypeQLException exceeded) {
+            return list(ValidationError.semantic(source.line(), source.column(), exceeded.getMessage()));
+        } finally {
+            context.release();
+        }
+
+        List<ValidationError> errors = new ArrayList<>();
+        for (TypeQLParser.QueryContext query : queries.query()) {
+            Token start = query.getStart();
+            TypeQLException exceeded = deadline.exceeded();
+            if (exceeded != null) {
+                errors.add(ValidationError.semantic(start.getLine(), start.getCharPositionInLine(),
+                                                    exceeded.getMessage()));
+                break;
+            }
+            try {
+                visitQuery(query);
+            } catch (TypeQLException e) {
+                errors.add(ValidationError.semantic(start.getLine(), start.getCharPositionInLine(), e.getMessage()));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Parses a query that may contain {@code ?name} placeholders in place of literal values, and returns a
+     * template that can be bound to values repeatedly without parsing the query again.
+     */
+    public PreparedQuery prepareQueryEOF(String queryString) {
+        return parse(queryString, TypeQLParser::eof_query, ctx -> new PreparedQuery(options, ctx, queryString));
     }
 
     public Pattern parsePatternEOF(String patternString) {
@@ -183,7 +498,7 @@ public class Parser extends TypeQLBaseVisitor {
 
     // GLOBAL HELPER METHODS ===================================================
 
-    private UnboundVariable getVar(TerminalNode variable) {
+    UnboundVariable getVar(TerminalNode variable) {
         // Remove '$' prefix
         String name = variable.getSymbol().getText().substring(1);
 
@@ -320,7 +635,8 @@ public class Parser extends TypeQLBaseVisitor {
     public TypeQLMatch visitQuery_match(TypeQLParser.Query_matchContext ctx) {
         TypeQLMatch match = new TypeQLMatch.Unfiltered(visitPatterns(ctx.patterns()));
 
-        if (ctx.modifiers() != null) {
+        // A match query without modifiers stays unfiltered, as it is when built through TypeQL.match()
+        if (ctx.modifiers() != null && ctx.modifiers().getChildCount() > 0) {
             List<UnboundVariable> variables = new ArrayList<>();
             Sortable.Sorting sorting = null;
             Long offset = null, limit = null;
@@ -588,14 +904,18 @@ public class Parser extends TypeQLBaseVisitor {
     }
 
     private ThingConstraint.Isa getIsaConstraint(TerminalNode isaToken, TypeQLParser.TypeContext ctx) {
+        return getIsaConstraint(isaToken, visitType(ctx));
+    }
+
+    ThingConstraint.Isa getIsaConstraint(TerminalNode isaToken, Either<String, UnboundVariable> type) {
         TypeQLToken.Constraint isa = TypeQLToken.Constraint.of(isaToken.getText());
 
         if (isa != null && isa.equals(TypeQLToken.Constraint.ISA)) {
-            return new ThingConstraint.Isa(visitType(ctx), false);
+            return new ThingConstraint.Isa(type, false);
         } else if (isa != null && isa.equals(TypeQLToken.Constraint.ISAX)) {
-            return new ThingConstraint.Isa(visitType(ctx), true);
+            return new ThingConstraint.Isa(type, true);
         } else {
-            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(ctx.getText()));
+            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(isaToken.getText()));
         }
     }
 
@@ -693,6 +1013,10 @@ public class Parser extends TypeQLBaseVisitor {
             else value = getString(ctx.STRING_());
         } else throw TypeQLException.of(ILLEGAL_STATE);
 
+        return getValueConstraint(predicate, value, ctx);
+    }
+
+    ThingConstraint.Value<?> getValueConstraint(TypeQLToken.Predicate predicate, Object value, ParserRuleContext ctx) {
         assert predicate != null;
 
         if (value instanceof Long) {
@@ -755,12 +1079,15 @@ public class Parser extends TypeQLBaseVisitor {
         } else if (ctx.DATETIME_() != null) {
             return getDateTime(ctx.DATETIME_());
 
+        } else if (ctx.PARAM_() != null) {
+            throw TypeQLException.of(UNBOUND_PARAMETER.message(ctx.PARAM_().getText()));
+
         } else {
             throw TypeQLException.of(ILLEGAL_GRAMMAR.message(ctx.getText()));
         }
     }
 
-    private String getString(TerminalNode string) {
+    String getString(TerminalNode string) {
         String str = string.getText();
         assert str.length() >= 2;
         TypeQLToken.Char start = TypeQLToken.Char.of(str.substring(0, 1));
@@ -778,19 +1105,13 @@ public class Parser extends TypeQLBaseVisitor {
     }
 
     private long getLong(TerminalNode number) {
-        try {
-            return Long.parseLong(number.getText());
-        } catch (NumberFormatException e) {
-            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(number.getText()));
-        }
+        String text = number.getText();
+        return Literals.parseLong(text, 0, text.length());
     }
 
     private double getDouble(TerminalNode real) {
-        try {
-            return Double.parseDouble(real.getText());
-        } catch (NumberFormatException e) {
-            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(real.getText()));
-        }
+        String text = real.getText();
+        return Literals.parseDouble(text, 0, text.length());
     }
 
     private boolean getBoolean(TerminalNode bool) {
@@ -808,18 +1129,118 @@ public class Parser extends TypeQLBaseVisitor {
     }
 
     private LocalDateTime getDate(TerminalNode date) {
-        try {
-            return LocalDate.parse(date.getText(), DateTimeFormatter.ISO_LOCAL_DATE).atStartOfDay();
-        } catch (DateTimeParseException e) {
-            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(date.getText()));
-        }
+        String text = date.getText();
+        return Literals.parseDate(text, 0, text.length());
     }
 
     private LocalDateTime getDateTime(TerminalNode dateTime) {
-        try {
-            return LocalDateTime.parse(dateTime.getText(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        } catch (DateTimeParseException e) {
-            throw TypeQLException.of(ILLEGAL_GRAMMAR.message(dateTime.getText()));
+        String text = dateTime.getText();
+        return Literals.parseDateTime(text, 0, text.length());
+    }
+
+    /**
+     * Immutable configuration of a {@link Parser}.
+     */
+    public static class Options {
+
+        static final Options DEFAULT = new Options(false, false, false, false, ParseInstrumentation.NONE, ParseLimits.NONE);
+
+        private final boolean fastPath;
+        private final boolean directBuild;
+        private final boolean asciiLexer;
+        private final boolean cheapErrors;
+        private final ParseInstrumentation instrumentation;
+        private final ParseLimits limits;
+
+        private Options(boolean fastPath, boolean directBuild, boolean asciiLexer, boolean cheapErrors,
+                        ParseInstrumentation instrumentation, ParseLimits limits) {
+            this.fastPath = fastPath;
+            this.directBuild = directBuild;
+            this.asciiLexer = asciiLexer;
+            this.cheapErrors = cheapErrors;
+            this.instrumentation = instrumentation;
+            this.limits = limits;
+        }
+
+        public static Options defaults() {
+            return DEFAULT;
+        }
+
+        /**
+         * Enables or disables the hand-written parser for simple {@code match} and {@code insert} queries,
+         * which falls back to ANTLR for anything it does not cover. Disabled by default.
+         */
+        public Options fastPath(boolean fastPath) {
+            return new Options(fastPath, directBuild, asciiLexer, cheapErrors, instrumentation, limits);
+        }
+
+        public boolean fastPath() {
+            return fastPath;
+        }
+
+        /**
+         * Enables or disables building queries while ANTLR parses them, without keeping a parse tree of the whole
+         * query. Only the parts of a query that are not built directly, such as {@code match} patterns and schema
+         * definitions, still go through a parse tree. Disabled by default.
+         */
+        public Options directBuild(boolean directBuild) {
+            return new Options(fastPath, directBuild, asciiLexer, cheapErrors, instrumentation, limits);
+        }
+
+        public boolean directBuild() {
+            return directBuild;
+        }
+
+        /**
+         * Enables or disables lexing ASCII input with a hand-written lexer, which skips whitespace and comments
+         * without creating tokens for them, and hands any token that is not plain ASCII to the ANTLR lexer.
+         * Disabled by default.
+         */
+        public Options asciiLexer(boolean asciiLexer) {
+            return new Options(fastPath, directBuild, asciiLexer, cheapErrors, instrumentation, limits);
+        }
+
+        public boolean asciiLexer() {
+            return asciiLexer;
+        }
+
+        /**
+         * Enables or disables reporting a syntax error as soon as the fast first pass fails, pointing at the first
+         * offending token, instead of parsing the input again with full-context prediction to describe every error
+         * in it. The reported error may be less precise, and later errors are not reported. Disabled by default.
+         */
+        public Options cheapErrors(boolean cheapErrors) {
+            return new Options(fastPath, directBuild, asciiLexer, cheapErrors, instrumentation, limits);
+        }
+
+        public boolean cheapErrors() {
+            return cheapErrors;
+        }
+
+        /**
+         * Reports the metrics of every call through the ANTLR parser to {@code instrumentation}, such as
+         * {@link ParseInstrumentation#flightRecorder()}. Queries taken by the hand-written fast path are not
+         * reported. Defaults to {@link ParseInstrumentation#NONE}.
+         */
+        public Options instrumentation(ParseInstrumentation instrumentation) {
+            return new Options(fastPath, directBuild, asciiLexer, cheapErrors, instrumentation, limits);
+        }
+
+        public ParseInstrumentation instrumentation() {
+            return instrumentation;
+        }
+
+        /**
+         * Limits the input of every call through the ANTLR parser. Queries taken by the hand-written fast path,
+         * which parses in linear time, are only checked against {@link ParseLimits#maxInputLength()}. Defaults to
+         * {@link ParseLimits#NONE}.
+         */
+        public Options limits(ParseLimits limits) {
+            return new Options(fastPath, directBuild, asciiLexer, cheapErrors, instrumentation, limits);
+        }
+
+        public ParseLimits limits() {
+            return limits;
         }
     }
 }
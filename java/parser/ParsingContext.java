@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.grammar.TypeQLLexer;
+import com.vaticle.typeql.grammar.TypeQLParser;
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A lexer, token stream and parser that are reset and reused across parses on the same thread.
+ * The ANTLR DFA cache is static to the generated recognisers, so reused instances share it with
+ * freshly allocated ones.
+ *
+ * Virtual threads are usually started for a single task, so a context kept per virtual thread would be
+ * allocated afresh for almost every parse. Parses on virtual threads instead take a context from a small
+ * pool shared by all virtual threads, and return it when they are done.
+ */
+class ParsingContext {
+
+    private static final CharStream EMPTY = CharStreams.fromString("");
+    private static final ThreadLocal<ParsingContext> CONTEXT = ThreadLocal.withInitial(ParsingContext::new);
+    private static final BlockingQueue<ParsingContext> SHARED =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private final TypeQLLexer lexer;
+    private final AsciiLexer asciiLexer;
+    private final LimitedTokenSource limitedLexer;
+    private final DeadlineListener deadlineListener;
+    private final CommonTokenStream tokens;
+    private final TypeQLParser parser;
+    private final HeldErrors lexerErrors;
+    private boolean inUse;
+    private boolean shared;
+
+    private ParsingContext() {
+        lexer = new TypeQLLexer(EMPTY);
+        asciiLexer = new AsciiLexer(lexer);
+        limitedLexer = new LimitedTokenSource();
+        deadlineListener = new DeadlineListener();
+        tokens = new SourceTokenStream(lexer);
+        parser = new TypeQLParser(tokens);
+        lexerErrors = new HeldErrors();
+        inUse = false;
+        shared = false;
+    }
+
+    /**
+     * Returns the context of the current thread, or a fresh one if the current thread's context is
+     * already in use further up the stack. On a virtual thread, returns a context from the shared pool,
+     * or a fresh one if the pool is empty. The caller must {@link #release()} it once parsing is done.
+     */
+    static ParsingContext acquire() {
+        ParsingContext context;
+        if (isVirtualThread()) {
+            context = SHARED.poll();
+            if (context == null) context = new ParsingContext();
+            context.shared = true;
+        } else {
+            context = CONTEXT.get();
+            if (context.inUse) context = new ParsingContext();
+        }
+        context.inUse = true;
+        return context;
+    }
+
+    @Nullable
+    private static MethodHandle isVirtualHandle() {
+        try {
+            MethodType type = MethodType.methodType(boolean.class);
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", type);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) return false;
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Prepares the parser for a new input. Errors reported by the lexer are held back, so that they can be
+     * reported by {@link #retry(ANTLRErrorStrategy, PredictionMode, ErrorListener)} if the parse fails.
+     */
+    TypeQLParser reset(Source source, ANTLRErrorStrategy errorHandlingStrategy, PredictionMode prediction,
+                       Parser.Options options) {
+        return reset(source, errorHandlingStrategy, prediction, options, ParseRecorder.of(ParseInstrumentation.NONE));
+    }
+
+    /**
+     * Prepares the parser for a new input like {@link #reset(Source, ANTLRErrorStrategy, PredictionMode,
+     * Parser.Options)}, recording the time spent lexing it to {@code recorder}.
+     */
+    TypeQLParser reset(Source source, ANTLRErrorStrategy errorHandlingStrategy, PredictionMode prediction,
+                       Parser.Options options, ParseRecorder recorder) {
+        lexer.setInputStream(source.charStream());
+        lexer.setLine(source.line());
+        lexer.setCharPositionInLine(source.column());
+        lexer.removeErrorListeners();
+        lexerErrors.clear();
+        lexer.addErrorListener(lexerErrors);
+        TokenSource tokenSource = lexer;
+        if (options.asciiLexer()) {
+            asciiLexer.reset();
+            tokenSource = asciiLexer;
+        }
+        tokenSource = recorder.time(tokenSource);
+        if (options.limits() != ParseLimits.NONE) {
+            limitedLexer.reset(tokenSource, options.limits());
+            tokenSource = limitedLexer;
+        }
+        tokens.setTokenSource(tokenSource);
+        parser.setTokenStream(tokens);
+        parser.removeErrorListeners();
+        parser.removeParseListeners();
+        addDeadlineListener();
+        parser.setBuildParseTree(true);
+        parser.setErrorHandler(errorHandlingStrategy);
+        parser.getInterpreter().setPredictionMode(prediction);
+        return parser;
+    }
+
+    /**
+     * @return the error for the limit that the input of the last parse exceeded, if it exceeded one, including a
+     * deadline that has passed or an interrupt that has arrived since
+     */
+    @Nullable
+    TypeQLException limitExceeded() {
+        if (tokens.getTokenSource() != limitedLexer) return null;
+        limitedLexer.checkDeadline();
+        return limitedLexer.exceeded();
+    }
+
+    /**
+     * @return the deadline of the last parse, which the caller can still check once the context is released
+     */
+    ParseDeadline deadline() {
+        return tokens.getTokenSource() == limitedLexer ? limitedLexer.deadline() : ParseDeadline.NONE;
+    }
+
+    private void addDeadlineListener() {
+        if (deadline().isNone()) return;
+        deadlineListener.reset();
+        parser.addParseListener(deadlineListener);
+    }
+
+    /**
+     * Prepares the parser to parse the same input again from the start, reusing the tokens that the last parse
+     * already lexed, and reports both the held back lexer errors and all new errors to {@code errorListener}.
+     */
+    TypeQLParser retry(ANTLRErrorStrategy errorHandlingStrategy, PredictionMode prediction,
+                       ErrorListener errorListener) {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+        lexerErrors.replay(lexer, errorListener);
+        parser.removeErrorListeners();
+        parser.removeParseListeners();
+        addDeadlineListener();
+        parser.setBuildParseTree(true);
+        parser.addErrorListener(errorListener);
+        parser.setErrorHandler(errorHandlingStrategy);
+        parser.getInterpreter().setPredictionMode(prediction);
+        parser.reset();
+        return parser;
+    }
+
+    /**
+     * Drops the buffered tokens and input of the last parse, so that they are not retained by the
+     * thread, and makes the context available again, returning it to the shared pool if it was taken
+     * from there and the pool has room. Parse trees that were already built remain valid.
+     */
+    void release() {
+        lexer.setInputStream(EMPTY);
+        asciiLexer.reset();
+        tokens.setTokenSource(lexer);
+        parser.setTokenStream(tokens);
+        lexerErrors.clear();
+        inUse = false;
+        if (shared) SHARED.offer(this);
+    }
+
+    /**
+     * Checks the deadline as the parser enters rules and consumes tokens, so that it is also checked while the
+     * parser runs over tokens that were already lexed, as when a failed parse is retried to report its errors.
+     * Once the deadline has passed, the parser is stopped the way the bail error strategy stops it, by marking
+     * every open rule with an exception and throwing a {@link ParseCancellationException}, and the caller finds
+     * the error through {@link #limitExceeded()}.
+     */
+    private class DeadlineListener implements ParseTreeListener {
+
+        private int steps;
+
+        void reset() {
+            steps = 0;
+        }
+
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+            step();
+        }
+
+        @Override
+        public void visitTerminal(TerminalNode node) {
+            step();
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {}
+
+        @Override
+        public void visitErrorNode(ErrorNode node) {}
+
+        private void step() {
+            if (++steps % ParseDeadline.CHECK_INTERVAL != 0 || !limitedLexer.checkDeadline()) return;
+            RecognitionException exception = new RecognitionException(parser, tokens, parser.getContext());
+            for (ParserRuleContext context = parser.getContext(); context != null; context = context.getParent()) {
+                context.exception = exception;
+            }
+            throw new ParseCancellationException(exception);
+        }
+    }
+
+    /**
+     * Reads the text between two tokens from the input rather than from the buffered tokens, so that it includes
+     * the whitespace and comments that the ASCII lexer skips. ANTLR quotes this text in syntax errors.
+     */
+    private static class SourceTokenStream extends CommonTokenStream {
+
+        private SourceTokenStream(TokenSource tokenSource) {
+            super(tokenSource);
+        }
+
+        @Override
+        public String getText(Token start, Token stop) {
+            if (start == null || stop == null || start.getStartIndex() < 0 || stop.getStartIndex() < 0) {
+                return super.getText(start, stop);
+            }
+            int end = stop.getType() == Token.EOF ? stop.getStartIndex() - 1 : stop.getStopIndex();
+            if (start.getType() == Token.EOF || end < start.getStartIndex()) return "";
+            return getTokenSource().getInputStream().getText(Interval.of(start.getStartIndex(), end));
+        }
+    }
+
+    private static class HeldErrors extends BaseErrorListener {
+
+        private final List<HeldError> errors = new ArrayList<>();
+
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                int line, int charPositionInLine, String msg, RecognitionException e) {
+            errors.add(new HeldError(offendingSymbol, line, charPositionInLine, msg, e));
+        }
+
+        void replay(Recognizer<?, ?> recognizer, ANTLRErrorListener listener) {
+            for (HeldError error : errors) {
+                listener.syntaxError(recognizer, error.offendingSymbol, error.line, error.charPositionInLine,
+                                     error.msg, error.exception);
+            }
+            errors.clear();
+        }
+
+        void clear() {
+            errors.clear();
+        }
+    }
+
+    private static class HeldError {
+
+        private final Object offendingSymbol;
+        private final int line;
+        private final int charPositionInLine;
+        private final String msg;
+        private final RecognitionException exception;
+
+        private HeldError(Object offendingSymbol, int line, int charPositionInLine, String msg,
+                          RecognitionException exception) {
+            this.offendingSymbol = offendingSymbol;
+            this.line = line;
+            this.charPositionInLine = charPositionInLine;
+            this.msg = msg;
+            this.exception = exception;
+        }
+    }
+}
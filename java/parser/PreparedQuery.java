@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.grammar.TypeQLLexer;
+import com.vaticle.typeql.grammar.TypeQLParser;
+import com.vaticle.typeql.lang.common.TypeQLToken;
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SPACE;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.EQ;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_PARAMETER_VALUE;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.UNBOUND_PARAMETER;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.UNKNOWN_PARAMETER;
+
+/**
+ * A query parsed once, with {@code ?name} placeholders in place of some of its literal values.
+ *
+ * The query is built and validated once, when it is prepared, with a placeholder value constraint standing in for
+ * each placeholder. {@link #bind(Map)} then substitutes the bound values with {@link TypeQLQuery#substitute}, which
+ * copies only the statements that hold placeholders, and the patterns and query enclosing them, without validating
+ * the query again. Every other statement is shared between the template and the queries bound from it, so, like
+ * the queries returned by {@link QueryCache}, bound queries must not be modified through the variable builder
+ * methods.
+ */
+public class PreparedQuery {
+
+    private static final String PARAMETER_PREFIX = "?";
+
+    private final TypeQLQuery template;
+    private final String queryString;
+    private final Set<String> parameters;
+
+    PreparedQuery(Parser.Options options, TypeQLParser.Eof_queryContext ctx, String queryString) {
+        this.queryString = queryString;
+        Set<String> parameters = new LinkedHashSet<>();
+        collectParameters(ctx, parameters);
+        this.parameters = Collections.unmodifiableSet(parameters);
+        this.template = new Template(options).visitEof_query(ctx);
+    }
+
+    private static void collectParameters(ParseTree tree, Set<String> parameters) {
+        if (tree instanceof TerminalNode) {
+            if (((TerminalNode) tree).getSymbol().getType() == TypeQLLexer.PARAM_) {
+                parameters.add(tree.getText().substring(PARAMETER_PREFIX.length()));
+            }
+        } else {
+            for (int i = 0; i < tree.getChildCount(); i++) collectParameters(tree.getChild(i), parameters);
+        }
+    }
+
+    /**
+     * @return the names of the placeholders in the query, without their {@code ?} prefix, in order of appearance
+     */
+    public Set<String> parameters() {
+        return parameters;
+    }
+
+    /**
+     * Builds the query with every placeholder replaced by its bound value. Values may be strings, integral or
+     * floating point numbers, booleans, {@link LocalDate}s or {@link LocalDateTime}s, and every placeholder of the
+     * query must be bound. The values are checked as they are bound, but the rest of the query is not validated
+     * again.
+     *
+     * @param bindings values keyed by placeholder name, without the {@code ?} prefix
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends TypeQLQuery> T bind(Map<String, ?> bindings) {
+        for (String name : bindings.keySet()) {
+            if (!parameters.contains(name)) throw TypeQLException.of(UNKNOWN_PARAMETER.message(PARAMETER_PREFIX + name));
+        }
+        return (T) template.substitute(value -> {
+            if (value instanceof Placeholder) return ((Placeholder) value).bind(bindings);
+            else return value;
+        });
+    }
+
+    @Override
+    public String toString() {
+        return queryString;
+    }
+
+    private static class Template extends Parser {
+
+        private Template(Parser.Options options) {
+            super(options);
+        }
+
+        @Override
+        public Object visitValue(TypeQLParser.ValueContext ctx) {
+            // The placeholder token is passed on as the value, for getValueConstraint() to tell it from a literal
+            if (ctx.PARAM_() != null) return ctx.PARAM_();
+            else return super.visitValue(ctx);
+        }
+
+        @Override
+        ThingConstraint.Value<?> getValueConstraint(TypeQLToken.Predicate predicate, Object value,
+                                                    ParserRuleContext ctx) {
+            if (value instanceof TerminalNode) return new Placeholder(predicate, ((TerminalNode) value).getText());
+            else return super.getValueConstraint(predicate, value, ctx);
+        }
+    }
+
+    /**
+     * A value constraint holding a placeholder, such as {@code > ?age}, in the template of a prepared query.
+     */
+    private static class Placeholder extends ThingConstraint.Value.String {
+
+        private Placeholder(TypeQLToken.Predicate predicate, java.lang.String parameter) {
+            super(predicate, parameter);
+        }
+
+        private ThingConstraint.Value<?> bind(Map<java.lang.String, ?> bindings) {
+            java.lang.String parameter = value();
+            Object value = bindings.get(parameter.substring(PARAMETER_PREFIX.length()));
+            if (value == null) {
+                throw TypeQLException.of(UNBOUND_PARAMETER.message(parameter));
+            } else if (value instanceof java.lang.String) {
+                return new ThingConstraint.Value.String(predicate(), (java.lang.String) value);
+            } else if (value instanceof java.lang.Boolean) {
+                return new ThingConstraint.Value.Boolean(predicate().asEquality(), (java.lang.Boolean) value);
+            } else if (value instanceof java.lang.Long || value instanceof Integer || value instanceof Short
+                    || value instanceof Byte) {
+                return new ThingConstraint.Value.Long(predicate().asEquality(), ((Number) value).longValue());
+            } else if (value instanceof java.lang.Double || value instanceof Float) {
+                return new ThingConstraint.Value.Double(predicate().asEquality(), ((Number) value).doubleValue());
+            } else if (value instanceof LocalDateTime) {
+                return new ThingConstraint.Value.DateTime(predicate().asEquality(), (LocalDateTime) value);
+            } else if (value instanceof LocalDate) {
+                return new ThingConstraint.Value.DateTime(predicate().asEquality(), ((LocalDate) value).atStartOfDay());
+            } else {
+                throw TypeQLException.of(INVALID_PARAMETER_VALUE.message(parameter, value.getClass().getSimpleName()));
+            }
+        }
+
+        @Override
+        public java.lang.String toString() {
+            if (predicate().equals(EQ)) return value();
+            else return predicate().toString() + SPACE + value();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A concurrent cache of parsed queries, keyed by query string, bounded by both the number of entries and their total
+ * weight. The weight of an entry is the length of its query string, which is proportional to the size of its AST.
+ * A large cache is split into segments that are each evicted in least-recently-used order, so that concurrent
+ * lookups only contend when their queries hash to the same segment. Each segment holds an equal share of both
+ * bounds, so a query that is heavier than a segment's share of the weight is not cached. A cache with fewer than
+ * {@value #MIN_SEGMENT_ENTRIES} entries per segment would evict too eagerly, so smaller caches have fewer segments,
+ * down to a single segment that is evicted in exact least-recently-used order.
+ *
+ * Queries returned by the cache are shared between all callers and threads: they must not be modified through
+ * the variable builder methods, which mutate variables in place.
+ */
+public class QueryCache {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_ENTRIES = 64;
+
+    private final Segment[] segments;
+    private final long maxEntries;
+    private final long maxWeight;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    public QueryCache(long maxEntries, long maxWeight) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("Query cache must allow at least one entry");
+        if (maxWeight <= 0) throw new IllegalArgumentException("Query cache must allow a positive weight");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2L * MIN_SEGMENT_ENTRIES <= maxEntries) {
+            segmentCount *= 2;
+        }
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(ceilDiv(maxEntries, segmentCount), ceilDiv(maxWeight, segmentCount));
+        }
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Returns the cached query for the given string, or parses and caches it on a miss.
+     * Queries that fail to parse are not cached, and the exception is propagated to the caller.
+     */
+    public TypeQLQuery get(String queryString, Function<String, ? extends TypeQLQuery> parser) {
+        Segment segment = segmentOf(queryString);
+        TypeQLQuery query = segment.get(queryString);
+        if (query != null) {
+            hits.increment();
+            return query;
+        }
+        misses.increment();
+        // Parse outside of the segment lock: a concurrent miss on the same string parses twice, but only one
+        // of the results is retained and returned to both callers.
+        return segment.putIfAbsent(queryString, parser.apply(queryString));
+    }
+
+    public long maxEntries() {
+        return maxEntries;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) weight += segment.weight();
+        return weight;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) segment.clear();
+    }
+
+    public Statistics statistics() {
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private Segment segmentOf(String queryString) {
+        int hash = queryString.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static long weightOf(String queryString) {
+        return queryString.length();
+    }
+
+    private class Segment {
+
+        private final long maxEntries;
+        private final long maxWeight;
+        private final LinkedHashMap<String, TypeQLQuery> entries;
+        private long weight;
+
+        private Segment(long maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+            this.weight = 0;
+        }
+
+        private synchronized TypeQLQuery get(String queryString) {
+            return entries.get(queryString);
+        }
+
+        private synchronized TypeQLQuery putIfAbsent(String queryString, TypeQLQuery query) {
+            TypeQLQuery existing = entries.get(queryString);
+            if (existing != null) return existing;
+            long entryWeight = weightOf(queryString);
+            if (entryWeight > maxWeight) return query;
+
+            entries.put(queryString, query);
+            weight += entryWeight;
+            Iterator<Map.Entry<String, TypeQLQuery>> leastRecentlyUsed = entries.entrySet().iterator();
+            while (entries.size() > maxEntries || weight > maxWeight) {
+                Map.Entry<String, TypeQLQuery> evicted = leastRecentlyUsed.next();
+                weight -= weightOf(evicted.getKey());
+                leastRecentlyUsed.remove();
+                evictions.increment();
+            }
+            return query;
+        }
+
+        private synchronized long size() {
+            return entries.size();
+        }
+
+        private synchronized long weight() {
+            return weight;
+        }
+
+        private synchronized void clear() {
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    public static class Statistics {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+
+        Statistics(long hits, long misses, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "hits: " + hits + ", misses: " + misses + ", evictions: " + evictions;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Publishes the queries of a lazily parsed script to a single {@link Flow.Subscriber}, parsing on an
+ * {@link Executor} only as far ahead as the subscriber has requested.
+ *
+ * Queries are parsed only to meet outstanding demand, except that once demand runs out the next segment of the
+ * script is parsed ahead, so that the end of the script can be signalled without waiting for further demand. At
+ * most the queries of one segment are therefore buffered for a slow subscriber. The script is opened on the
+ * executor when the subscriber first requests a query, and closed once it has been published in full, fails to
+ * parse, or the subscription is cancelled. A script can only be read once, so any subscriber after the first is
+ * signalled an error.
+ */
+class QueryPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<Stream<T>> script;
+    private final Executor executor;
+    private final AtomicBoolean subscribed;
+
+    QueryPublisher(Supplier<Stream<T>> script, Executor executor) {
+        this.script = script;
+        this.executor = executor;
+        this.subscribed = new AtomicBoolean(false);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription(subscriber));
+        } else {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("A script of queries can only be subscribed to once."));
+        }
+    }
+
+    /**
+     * All signals to the subscriber are made from {@link #drain()}, which runs on the executor and is never run
+     * by more than one thread at a time: a thread that raises {@code pending} from zero schedules a drain, and the
+     * drain keeps running until it has observed every change to demand or cancellation made in the meantime.
+     */
+    private class Subscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand;
+        private final AtomicInteger pending;
+        private volatile boolean cancelled;
+        private volatile Throwable illegalRequest;
+        private boolean done;
+        private Stream<T> stream;
+        private Iterator<T> queries;
+
+        private Subscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            this.demand = new AtomicLong();
+            this.pending = new AtomicInteger();
+            this.cancelled = false;
+            this.illegalRequest = null;
+            this.done = false;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                illegalRequest = new IllegalArgumentException("Requested a non-positive number of queries: " + n);
+            } else {
+                demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) return;
+            try {
+                if (cancelled) {
+                    finish();
+                } else if (illegalRequest != null) {
+                    finish();
+                    subscriber.onError(illegalRequest);
+                } else {
+                    while (demand.get() > 0 && !cancelled && illegalRequest == null) {
+                        if (queries == null) {
+                            stream = script.get();
+                            queries = stream.iterator();
+                        }
+                        if (!queries.hasNext()) {
+                            finish();
+                            subscriber.onComplete();
+                            return;
+                        }
+                        T query = queries.next();
+                        demand.decrementAndGet();
+                        subscriber.onNext(query);
+                    }
+                    if (queries != null && !cancelled && !queries.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!done) {
+                    finish();
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (stream != null) stream.close();
+            stream = null;
+            queries = null;
+        }
+    }
+}
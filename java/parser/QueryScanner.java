@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.DEFINE;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.INSERT;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.MATCH;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Command.UNDEFINE;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.ILLEGAL_QUERY_SIZE;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Splits a script of TypeQL queries into segments of whole queries, without holding more than one segment in memory.
+ *
+ * Segments are split before a top-level {@code match}, {@code define}, {@code undefine} or {@code insert} keyword
+ * that follows a {@code ;}, outside of strings, comments and braces. An {@code insert} continues the current
+ * query if that query started with {@code match} and has not had an {@code insert} yet. A segment may still hold
+ * more than one query, so segments should be parsed as a list of queries.
+ *
+ * The scanner only looks at ASCII syntax, so it works the same over the characters of a {@link Reader} and over
+ * the bytes of a UTF-8 file, where every byte of a multi-byte character is at least {@code 0x80}.
+ */
+abstract class QueryScanner implements Iterator<Source>, AutoCloseable {
+
+    private static final int MAX_KEYWORD_LENGTH = 8;
+
+    private long position;
+    private long segmentStart;
+    private int line;
+    private int column;
+    private int segmentLine;
+    private int segmentColumn;
+    private boolean hasContent;
+
+    private String queryKeyword;
+    private boolean hasInsert;
+    private int depth;
+    private int lastSignificant;
+    private int quote;
+    private boolean inComment;
+    private boolean escaped;
+
+    private final StringBuilder word;
+    private long wordStart;
+    private int wordLine;
+    private int wordColumn;
+    private int beforeWord;
+
+    private Source next;
+
+    QueryScanner() {
+        this.word = new StringBuilder(MAX_KEYWORD_LENGTH + 1);
+        this.line = 1;
+        this.segmentLine = 1;
+        this.wordStart = -1;
+    }
+
+    static QueryScanner of(Reader reader) {
+        return new Characters(reader);
+    }
+
+    static QueryScanner of(Path path) throws IOException {
+        return new MappedUtf8(path);
+    }
+
+    /**
+     * Scans {@code text} from {@code start}, which must be the start of a segment, at the given line and column
+     * of the text. Segment positions are indices into {@code text}.
+     */
+    static QueryScanner of(String text, int start, int line, int column) {
+        QueryScanner scanner = new Text(text, start);
+        scanner.position = scanner.segmentStart = start;
+        scanner.line = scanner.segmentLine = line;
+        scanner.column = scanner.segmentColumn = column;
+        return scanner;
+    }
+
+    /**
+     * @return the next unit of input, a character or a byte, or -1 at the end of the input
+     */
+    abstract int read();
+
+    /**
+     * @return whether the unit starts a new code point, as opposed to continuing the previous one
+     */
+    abstract boolean startsCodePoint(int unit);
+
+    /**
+     * @return the source between the given unit positions, which is always the input that was read since the
+     * previous segment
+     */
+    abstract Source segment(long start, long end, int line, int column);
+
+    @Override
+    public abstract void close();
+
+    /**
+     * @return the position at which the segment last returned by {@link #next()} ends, and the next one starts
+     */
+    long end() {
+        return segmentStart;
+    }
+
+    /**
+     * @return the line at which the segment after the one last returned by {@link #next()} starts
+     */
+    int endLine() {
+        return segmentLine;
+    }
+
+    /**
+     * @return the column at which the segment after the one last returned by {@link #next()} starts
+     */
+    int endColumn() {
+        return segmentColumn;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) next = scan();
+        return next != null;
+    }
+
+    @Override
+    public Source next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Source segment = next;
+        next = null;
+        return segment;
+    }
+
+    private Source scan() {
+        int unit;
+        while ((unit = read()) != -1) {
+            position++;
+            if (wordStart >= 0 && !isWordUnit(unit)) {
+                Source segment = endWord();
+                consume(unit);
+                if (segment != null) return segment;
+            } else {
+                consume(unit);
+            }
+        }
+        Source segment = wordStart >= 0 ? endWord() : null;
+        if (segment != null) return segment;
+        else if (hasContent) return cut(position, line, column);
+        else return null;
+    }
+
+    private void consume(int unit) {
+        if (unit == '\n') {
+            line++;
+            column = 0;
+        } else if (startsCodePoint(unit)) {
+            column++;
+        }
+
+        if (inComment) {
+            if (unit == '\n') inComment = false;
+        } else if (quote != 0) {
+            if (escaped) escaped = false;
+            else if (unit == '\\') escaped = true;
+            else if (unit == quote) quote = 0;
+        } else if (wordStart >= 0) {
+            if (word.length() <= MAX_KEYWORD_LENGTH) word.append((char) unit);
+        } else if (unit == '#') {
+            inComment = true;
+        } else if (!Character.isWhitespace(unit)) {
+            hasContent = true;
+            if (unit == '"' || unit == '\'') quote = unit;
+            else if (unit == '{') depth++;
+            else if (unit == '}') depth--;
+            else if (isWordUnit(unit) || unit == '$') {
+                word.setLength(0);
+                word.append((char) unit);
+                wordStart = position - 1;
+                wordLine = line;
+                wordColumn = column - 1;
+                beforeWord = lastSignificant;
+            }
+            lastSignificant = unit;
+        }
+    }
+
+    private Source endWord() {
+        long start = wordStart;
+        wordStart = -1;
+        if (depth != 0 || !isQueryKeyword(word)) return null;
+
+        String keyword = word.toString();
+        if (queryKeyword == null) {
+            queryKeyword = keyword;
+            return null;
+        } else if (beforeWord != ';') {
+            return null;
+        } else if (keyword.equals(INSERT.toString()) && queryKeyword.equals(MATCH.toString()) && !hasInsert) {
+            hasInsert = true;
+            return null;
+        }
+
+        Source segment = cut(start, wordLine, wordColumn);
+        queryKeyword = keyword;
+        hasInsert = false;
+        hasContent = true;
+        return segment;
+    }
+
+    private Source cut(long end, int nextLine, int nextColumn) {
+        Source segment = segment(segmentStart, end, segmentLine, segmentColumn);
+        segmentStart = end;
+        segmentLine = nextLine;
+        segmentColumn = nextColumn;
+        hasContent = false;
+        return segment;
+    }
+
+    private static boolean isQueryKeyword(CharSequence word) {
+        return contentEquals(word, MATCH.toString()) || contentEquals(word, INSERT.toString()) ||
+                contentEquals(word, DEFINE.toString()) || contentEquals(word, UNDEFINE.toString());
+    }
+
+    private static boolean contentEquals(CharSequence word, String keyword) {
+        if (word.length() != keyword.length()) return false;
+        for (int i = 0; i < keyword.length(); i++) {
+            if (word.charAt(i) != keyword.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isWordUnit(int unit) {
+        return unit >= 0x80 || (unit >= 'a' && unit <= 'z') || (unit >= 'A' && unit <= 'Z') ||
+                (unit >= '0' && unit <= '9') || unit == '_' || unit == '-';
+    }
+
+    private static class Characters extends QueryScanner {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Reader reader;
+        private final char[] buffer;
+        private final StringBuilder text;
+        private int bufferPosition;
+        private int bufferLimit;
+        private boolean endOfInput;
+
+        private Characters(Reader reader) {
+            this.reader = reader;
+            this.buffer = new char[BUFFER_SIZE];
+            this.text = new StringBuilder();
+        }
+
+        @Override
+        int read() {
+            if (bufferPosition == bufferLimit) {
+                if (endOfInput) return -1;
+                try {
+                    int read;
+                    do {
+                        read = reader.read(buffer, 0, buffer.length);
+                    } while (read == 0);
+                    if (read < 0) {
+                        endOfInput = true;
+                        return -1;
+                    }
+                    bufferPosition = 0;
+                    bufferLimit = read;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            char ch = buffer[bufferPosition++];
+            text.append(ch);
+            return ch;
+        }
+
+        @Override
+        boolean startsCodePoint(int unit) {
+            return !Character.isLowSurrogate((char) unit);
+        }
+
+        @Override
+        Source segment(long start, long end, int line, int column) {
+            int length = (int) (end - start);
+            Source segment = Source.of(text.substring(0, length), line, column);
+            text.delete(0, length);
+            return segment;
+        }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class Text extends QueryScanner {
+
+        private final String text;
+        private int index;
+
+        private Text(String text, int start) {
+            this.text = text;
+            this.index = start;
+        }
+
+        @Override
+        int read() {
+            return index < text.length() ? text.charAt(index++) : -1;
+        }
+
+        @Override
+        boolean startsCodePoint(int unit) {
+            return !Character.isLowSurrogate((char) unit);
+        }
+
+        @Override
+        Source segment(long start, long end, int line, int column) {
+            return Source.of(text.substring((int) start, (int) end), line, column);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Scans a UTF-8 file through a window mapped into memory, and returns segments as slices of that window, so
+     * that neither the file nor its queries are copied onto the heap. A window covers at least
+     * {@link #WINDOW_SIZE} bytes from the start of the current segment, and is re-mapped when the scan passes its
+     * end, so that files larger than a single mapping can be scanned.
+     */
+    private static class MappedUtf8 extends QueryScanner {
+
+        private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+        private final Path path;
+        private final FileChannel channel;
+        private final long fileSize;
+        private long offset;
+        private long segmentOffset;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long windowEnd;
+
+        private MappedUtf8(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, READ);
+            this.fileSize = channel.size();
+            this.windowStart = 0;
+            this.windowEnd = 0;
+            if (fileSize >= 3 && byteAt(0) == 0xEF && byteAt(1) == 0xBB && byteAt(2) == 0xBF) offset = 3;
+            this.segmentOffset = offset;
+        }
+
+        @Override
+        int read() {
+            if (offset == fileSize) return -1;
+            return byteAt(offset++);
+        }
+
+        @Override
+        boolean startsCodePoint(int unit) {
+            return (unit & 0xC0) != 0x80;
+        }
+
+        @Override
+        Source segment(long start, long end, int line, int column) {
+            long from = segmentOffset, to = segmentOffset + (end - start);
+            segmentOffset = to;
+            map(from, to);
+            return Source.of(window.duplicate().position((int) (from - windowStart)).limit((int) (to - windowStart))
+                                      .slice(), path.toString(), line, column);
+        }
+
+        private int byteAt(long at) {
+            if (at < windowStart || at >= windowEnd) map(Math.min(segmentOffset, at), at + 1);
+            return window.get((int) (at - windowStart)) & 0xFF;
+        }
+
+        private void map(long from, long to) {
+            if (from >= windowStart && to <= windowEnd) return;
+            long size = Math.min(fileSize - from, Math.max(WINDOW_SIZE, 2 * (to - from)));
+            if (to - from > Integer.MAX_VALUE) {
+                throw TypeQLException.of(ILLEGAL_QUERY_SIZE.message(path, Integer.MAX_VALUE));
+            }
+            size = Math.min(size, Integer.MAX_VALUE);
+            try {
+                window = channel.map(READ_ONLY, from, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            windowStart = from;
+            windowEnd = from + size;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
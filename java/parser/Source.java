@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A piece of TypeQL text to be parsed, together with the line and column at which it starts in the script it was
+ * taken from, so that syntax errors can be reported relative to the script.
+ */
+abstract class Source {
+
+    private final int line;
+    private final int column;
+
+    private Source(int line, int column) {
+        this.line = line;
+        this.column = column;
+    }
+
+    static Source of(String text) {
+        return of(text, 1, 0);
+    }
+
+    static Source of(String text, int line, int column) {
+        return new Text(text, line, column);
+    }
+
+    static Source of(ByteBuffer utf8, String sourceName, int line, int column) {
+        return new Utf8(utf8, sourceName, line, column);
+    }
+
+    /**
+     * @return the line of the script, counting from 1, at which this source starts
+     */
+    int line() {
+        return line;
+    }
+
+    /**
+     * @return the column of the script, counting from 0, at which this source starts
+     */
+    int column() {
+        return column;
+    }
+
+    /**
+     * @return a new character stream positioned at the start of this source
+     */
+    abstract CharStream charStream();
+
+    abstract String text();
+
+    /**
+     * @return whether this source holds more than {@code length} characters, which is decided without decoding
+     * the source whenever its size in code units already settles it
+     */
+    abstract boolean longerThan(int length);
+
+    private static class Text extends Source {
+
+        private final String text;
+
+        private Text(String text, int line, int column) {
+            super(line, column);
+            this.text = text;
+        }
+
+        @Override
+        CharStream charStream() {
+            return CharStreams.fromString(text);
+        }
+
+        @Override
+        String text() {
+            return text;
+        }
+
+        @Override
+        boolean longerThan(int length) {
+            return text.length() > length && text.codePointCount(0, text.length()) > length;
+        }
+    }
+
+    private static class Utf8 extends Source {
+
+        private final ByteBuffer utf8;
+        private final String sourceName;
+
+        private Utf8(ByteBuffer utf8, String sourceName, int line, int column) {
+            super(line, column);
+            this.utf8 = utf8;
+            this.sourceName = sourceName;
+        }
+
+        @Override
+        CharStream charStream() {
+            return new Utf8CharStream(utf8, sourceName);
+        }
+
+        @Override
+        String text() {
+            CharStream stream = charStream();
+            return stream.getText(Interval.of(0, stream.size() - 1));
+        }
+
+        @Override
+        boolean longerThan(int length) {
+            return utf8.remaining() > length && charStream().size() > length;
+        }
+    }
+}
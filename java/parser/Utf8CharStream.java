@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A {@link CharStream} that decodes UTF-8 lazily from a {@link ByteBuffer}, such as a slice of a memory-mapped
+ * file, so that the text never has to be copied into a {@link String}.
+ *
+ * ANTLR indexes character streams by code point, while the buffer is indexed by byte. The stream keeps a cursor
+ * holding both, and records the byte offset of every {@link #CHECKPOINT_INTERVAL}th code point it passes, so that
+ * seeking far back is bounded. Short seeks back, which the lexer makes when it gives back look-ahead, walk
+ * backwards over UTF-8 continuation bytes instead. Malformed input, including overlong encodings, surrogates and
+ * code points above U+10FFFF, decodes to U+FFFD, one byte at a time.
+ */
+class Utf8CharStream implements CharStream {
+
+    private static final int CHECKPOINT_INTERVAL = 1024;
+    private static final int REPLACEMENT = 0xFFFD;
+
+    private final ByteBuffer bytes;
+    private final int limit;
+    private final String sourceName;
+    private int index;
+    private int position;
+    private int[] checkpoints;
+    private int checkpointCount;
+    private int size;
+
+    Utf8CharStream(ByteBuffer bytes, String sourceName) {
+        this.bytes = bytes;
+        this.limit = bytes.limit();
+        this.sourceName = sourceName;
+        this.index = 0;
+        this.position = bytes.position();
+        this.checkpoints = new int[16];
+        this.checkpoints[0] = position;
+        this.checkpointCount = 1;
+        this.size = -1;
+    }
+
+    @Override
+    public void consume() {
+        if (position >= limit) throw new IllegalStateException("cannot consume EOF");
+        forward();
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) return 0;
+        if (i > 0) {
+            int at = position;
+            for (int k = 1; k < i; k++) {
+                if (at >= limit) return IntStream.EOF;
+                at += length(at);
+            }
+            return at >= limit ? IntStream.EOF : decode(at);
+        } else {
+            int target = index + i;
+            if (target < 0) return IntStream.EOF;
+            int savedIndex = index, savedPosition = position;
+            seek(target);
+            int codePoint = decode(position);
+            index = savedIndex;
+            position = savedPosition;
+            return codePoint;
+        }
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int target) {
+        if (target < index) {
+            if (index - target < CHECKPOINT_INTERVAL / 2) {
+                while (index > target) backward();
+                return;
+            }
+            int checkpoint = target / CHECKPOINT_INTERVAL;
+            index = checkpoint * CHECKPOINT_INTERVAL;
+            position = checkpoints[checkpoint];
+        }
+        while (index < target && position < limit) forward();
+    }
+
+    @Override
+    public int size() {
+        if (size < 0) {
+            int savedIndex = index, savedPosition = position;
+            while (position < limit) forward();
+            size = index;
+            index = savedIndex;
+            position = savedPosition;
+        }
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = interval.a;
+        int stop = Math.min(interval.b, size() - 1);
+        if (start < 0 || stop < start) return "";
+        int savedIndex = index, savedPosition = position;
+        seek(start);
+        StringBuilder text = new StringBuilder(stop - start + 1);
+        while (index <= stop) {
+            text.appendCodePoint(decode(position));
+            forward();
+        }
+        index = savedIndex;
+        position = savedPosition;
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size() - 1));
+    }
+
+    private void forward() {
+        position += length(position);
+        index++;
+        if (index % CHECKPOINT_INTERVAL == 0 && index / CHECKPOINT_INTERVAL == checkpointCount) {
+            if (checkpointCount == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+            checkpoints[checkpointCount++] = position;
+        }
+    }
+
+    private void backward() {
+        // Step back to the nearest lead byte whose sequence ends exactly where we are, or else by a single byte,
+        // which is how a malformed byte was consumed going forward
+        int end = position;
+        int at = end - 1;
+        while (at > end - 4 && at > bytes.position() && isContinuation(at)) at--;
+        position = (length(at) == end - at) ? at : end - 1;
+        index--;
+    }
+
+    private boolean isContinuation(int at) {
+        return (bytes.get(at) & 0xC0) == 0x80;
+    }
+
+    private int length(int at) {
+        int lead = bytes.get(at) & 0xFF;
+        int length;
+        if (lead < 0x80) return 1;
+        else if (lead >= 0xC2 && lead <= 0xDF) length = 2;
+        else if (lead >= 0xE0 && lead <= 0xEF) length = 3;
+        else if (lead >= 0xF0 && lead <= 0xF4) length = 4;
+        else return 1;
+        if (at + length > limit) return 1;
+        // The second byte is narrower than a continuation byte after some lead bytes, which rules out overlong
+        // encodings, UTF-16 surrogates and code points above U+10FFFF
+        int second = bytes.get(at + 1) & 0xFF;
+        if (second < minSecond(lead) || second > maxSecond(lead)) return 1;
+        for (int k = 2; k < length; k++) {
+            if (!isContinuation(at + k)) return 1;
+        }
+        return length;
+    }
+
+    private static int minSecond(int lead) {
+        if (lead == 0xE0) return 0xA0;
+        else if (lead == 0xF0) return 0x90;
+        else return 0x80;
+    }
+
+    private static int maxSecond(int lead) {
+        if (lead == 0xED) return 0x9F;
+        else if (lead == 0xF4) return 0x8F;
+        else return 0xBF;
+    }
+
+    private int decode(int at) {
+        int lead = bytes.get(at) & 0xFF;
+        if (lead < 0x80) return lead;
+        int length = length(at);
+        if (length == 1) return REPLACEMENT;
+        int codePoint = lead & (0xFF >> (length + 1));
+        for (int k = 1; k < length; k++) {
+            codePoint = (codePoint << 6) | (bytes.get(at + k) & 0x3F);
+        }
+        return codePoint;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import java.util.Objects;
+
+/**
+ * An error found while validating a script of queries, either a syntax error, or a semantic error raised when
+ * building a syntactically valid query, such as a variable that is out of scope.
+ */
+public class ValidationError {
+
+    private final boolean syntax;
+    private final int line;
+    private final int column;
+    private final String message;
+    private final int hash;
+
+    private ValidationError(boolean syntax, int line, int column, String message) {
+        this.syntax = syntax;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+        this.hash = Objects.hash(syntax, line, column, message);
+    }
+
+    static ValidationError syntax(int line, int column, String message) {
+        return new ValidationError(true, line, column, message);
+    }
+
+    static ValidationError semantic(int line, int column, String message) {
+        return new ValidationError(false, line, column, message);
+    }
+
+    public boolean isSyntax() {
+        return syntax;
+    }
+
+    /**
+     * @return the line of the script the error was found at, starting from 1. A semantic error is reported at
+     * the first line of the query that raised it.
+     */
+    public int line() {
+        return line;
+    }
+
+    /**
+     * @return the character position in the line the error was found at, starting from 0
+     */
+    public int column() {
+        return column;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ValidationError that = (ValidationError) o;
+        return this.syntax == that.syntax && this.line == that.line && this.column == that.column &&
+                this.message.equals(that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser;
+
+import com.vaticle.typeql.grammar.TypeQLLexer;
+import com.vaticle.typeql.grammar.TypeQLParser;
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.dfa.DFA;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.vaticle.typedb.common.collection.Collections.list;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_WARM_UP_SNAPSHOT;
+
+/**
+ * Primes the ANTLR lexer and parser prediction caches, so that the first queries after startup do
+ * not pay for filling the DFA.
+ *
+ * ANTLR keeps its DFA in static, process-wide caches that cannot be serialised directly. A
+ * {@link Snapshot} instead records the queries that added DFA states during a warm-up: replaying
+ * it in a fresh JVM rebuilds the same prediction state from a corpus that is usually a small
+ * fraction of the original.
+ *
+ * Each query is parsed with the ANTLR lexer and parse tree, which fill the lexer and parser DFA,
+ * and then again with the hand-written lexer, fast path and direct builder enabled, so that their
+ * code is exercised too for parsers that enable them.
+ */
+public class WarmUp {
+
+    private static final Parser.Options ANTLR = Parser.Options.defaults()
+            .fastPath(false).directBuild(false).asciiLexer(false);
+    private static final Parser.Options HAND_WRITTEN = Parser.Options.defaults()
+            .fastPath(true).directBuild(true).asciiLexer(true);
+
+    private static final DFA[] LEXER_DFA;
+    private static final DFA[] PARSER_DFA;
+
+    static {
+        TypeQLLexer lexer = new TypeQLLexer(CharStreams.fromString(""));
+        LEXER_DFA = lexer.getInterpreter().decisionToDFA;
+        PARSER_DFA = new TypeQLParser(new CommonTokenStream(lexer)).getInterpreter().decisionToDFA;
+    }
+
+    private static final List<String> CORPUS = list(
+            "define\n" +
+                    "name sub attribute, value string, regex '^[a-z]+$';\n" +
+                    "age sub attribute, value long;\n" +
+                    "score sub attribute, value double;\n" +
+                    "active sub attribute, value boolean;\n" +
+                    "born sub attribute, value datetime;\n" +
+                    "employment sub relation, relates employee, relates employer;\n" +
+                    "contract sub employment, relates contractor as employee;\n" +
+                    "person sub entity, owns name @key, owns age, owns score, owns born, plays employment:employee;\n" +
+                    "company sub entity, abstract, owns name, plays employment:employer;\n" +
+                    "rule senior: when { $p isa person, has age $a; $a > 65; } then { $p has active false; };",
+            "undefine\nperson owns age;\ncontract relates contractor as employee;\nrule senior;",
+            "match\n$x isa person;",
+            "match\n$x isa person, has name 'alice', has age $a;\n$a >= 18;\nget $x;",
+            "match\n$x iid 0x966e80018000000000000000;",
+            "match\n$x isa $t;\n$t sub! entity;\n$t type person;\nget $t; limit 10;",
+            "match\n$e (employee: $x, employer: $y) isa employment;\n$x has score $s;\n" +
+                    "sort $s desc, $x asc; offset 5; limit 10;",
+            "match\n$x isa person, has name $n;\n{ $n contains 'ar'; } or { $n like '^M.*$'; } or { $n = 'bob'; };\n" +
+                    "not { $x has age < 10; };",
+            "match\n$x has born > 2000-01-01, has born <= 2020-12-31T23:59:59.999;\n$x has score != 1500.0;",
+            "match\n$x isa person, has age $a;\nget $x, $a;\ngroup $x; max $a;",
+            "match\n$x isa person, has score $s;\ncount;",
+            "match\n$x isa person, has score $s;\nmean $s;",
+            "match\n$x isa person;\n$y isa person;\n$x is $y;\n$x != $y;",
+            "match\n$t sub attribute, value long;\n$r relates $role;\n$t owns $a @key;\n$t plays $role;\n" +
+                    "$t abstract;\n$t regex '.*';",
+            "insert\n$x isa person, has name \"alice\", has age 30, has score 0.5, has active true,\n" +
+                    "    has born 1990-01-01T00:00;",
+            "insert\n$_ 'bob' isa name;",
+            "match\n$x isa person, has name 'alice';\n$y isa company, has name 'vaticle';\n" +
+                    "insert\n(employee: $x, employer: $y) isa employment;",
+            "match\n$x isa person, has age $a;\ndelete\n$x has $a;",
+            "match\n$x isa person, has age $a;\ndelete\n$x has $a;\ninsert\n$x has age 31;",
+            "match\n$e (employee: $x) isa employment;\ndelete\n$e (employee: $x);"
+    );
+
+    /**
+     * Warms up the parser with a built-in corpus covering every kind of query.
+     */
+    public static Snapshot warmUp() {
+        return warmUp(CORPUS);
+    }
+
+    /**
+     * Warms up the parser by parsing every string in {@code queries}, which may each hold one or more
+     * queries. Queries that fail to parse still contribute to the prediction caches and are counted as
+     * failures rather than rethrown.
+     */
+    public static Snapshot warmUp(Iterable<String> queries) {
+        Parser antlr = new Parser(ANTLR);
+        Parser handWritten = new Parser(HAND_WRITTEN);
+        List<String> contributing = new ArrayList<>();
+        long statesBefore = dfaStates();
+        int parsed = 0, failed = 0;
+        for (String query : queries) {
+            long states = dfaStates();
+            try {
+                antlr.parseQueriesEOF(query).forEach(q -> {});
+                parsed++;
+            } catch (TypeQLException e) {
+                failed++;
+            }
+            try {
+                handWritten.parseQueriesEOF(query).forEach(q -> {});
+            } catch (TypeQLException e) {
+                // already counted by the ANTLR pass
+            }
+            if (dfaStates() > states) contributing.add(query);
+        }
+        return new Snapshot(contributing, parsed, failed, dfaStates() - statesBefore);
+    }
+
+    /**
+     * @return the number of states currently held across all lexer and parser DFA caches
+     */
+    public static long dfaStates() {
+        return dfaStates(LEXER_DFA) + dfaStates(PARSER_DFA);
+    }
+
+    private static long dfaStates(DFA[] decisions) {
+        long states = 0;
+        for (DFA dfa : decisions) {
+            synchronized (dfa.states) {
+                states += dfa.states.size();
+            }
+        }
+        return states;
+    }
+
+    public static class Snapshot {
+
+        private static final int MAGIC = 0x54514C57; // "TQLW"
+        private static final int VERSION = 1;
+        private static final int MAX_QUERY_BYTES = 1 << 24;
+
+        private final List<String> queries;
+        private final int parsed;
+        private final int failed;
+        private final long statesAdded;
+
+        private Snapshot(List<String> queries, int parsed, int failed, long statesAdded) {
+            this.queries = Collections.unmodifiableList(queries);
+            this.parsed = parsed;
+            this.failed = failed;
+            this.statesAdded = statesAdded;
+        }
+
+        /**
+         * Reads a snapshot previously written with {@link #write(OutputStream)}. The returned snapshot
+         * has not been replayed yet. Lengths read from the stream are checked before anything is allocated
+         * for them, so a corrupt or truncated snapshot is reported as invalid.
+         */
+        public static Snapshot read(InputStream inputStream) throws IOException {
+            DataInputStream input = new DataInputStream(inputStream);
+            try {
+                if (input.readInt() != MAGIC) {
+                    throw TypeQLException.of(INVALID_WARM_UP_SNAPSHOT.message("unrecognised format"));
+                }
+                int version = input.readInt();
+                if (version != VERSION) {
+                    throw TypeQLException.of(INVALID_WARM_UP_SNAPSHOT.message("unsupported version " + version));
+                }
+                int count = input.readInt();
+                if (count < 0) throw TypeQLException.of(INVALID_WARM_UP_SNAPSHOT.message("negative query count"));
+                List<String> queries = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    int length = input.readInt();
+                    if (length < 0 || length > MAX_QUERY_BYTES) {
+                        throw TypeQLException.of(INVALID_WARM_UP_SNAPSHOT.message("query length " + length +
+                                                                                   " out of range"));
+                    }
+                    byte[] bytes = new byte[length];
+                    input.readFully(bytes);
+                    queries.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+                return new Snapshot(queries, 0, 0, 0);
+            } catch (EOFException e) {
+                throw TypeQLException.of(INVALID_WARM_UP_SNAPSHOT.message("truncated"));
+            }
+        }
+
+        /**
+         * Writes the recorded queries to {@code outputStream}. A query longer than 16 MiB in UTF-8 cannot be
+         * written, and nothing is written if the snapshot holds one.
+         */
+        public void write(OutputStream outputStream) throws IOException {
+            for (String query : queries) {
+                int length = query.getBytes(StandardCharsets.UTF_8).length;
+                if (length > MAX_QUERY_BYTES) {
+                    throw TypeQLException.of(INVALID_WARM_UP_SNAPSHOT.message("query length " + length +
+                                                                               " out of range"));
+                }
+            }
+            DataOutputStream output = new DataOutputStream(outputStream);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(queries.size());
+            for (String query : queries) {
+                byte[] bytes = query.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+            output.flush();
+        }
+
+        /**
+         * Replays the recorded queries to rebuild the prediction caches in this JVM.
+         */
+        public Snapshot replay() {
+            return warmUp(queries);
+        }
+
+        /**
+         * @return the queries that added DFA states when this snapshot was taken
+         */
+        public List<String> queries() {
+            return queries;
+        }
+
+        public int parsed() {
+            return parsed;
+        }
+
+        public int failed() {
+            return failed;
+        }
+
+        public long statesAdded() {
+            return statesAdded;
+        }
+
+        @Override
+        public String toString() {
+            return "WarmUp.Snapshot{queries=" + queries.size() + ", parsed=" + parsed + ", failed=" + failed +
+                    ", statesAdded=" + statesAdded + "}";
+        }
+    }
+}
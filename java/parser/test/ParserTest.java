@@ -24,6 +24,12 @@ package com.vaticle.typeql.lang.parser.test;
 import com.vaticle.typeql.lang.TypeQL;
 import com.vaticle.typeql.lang.common.TypeQLArg;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.parser.ParseInstrumentation;
+import com.vaticle.typeql.lang.parser.ParseLimits;
+import com.vaticle.typeql.lang.parser.ParsedScript;
+import com.vaticle.typeql.lang.parser.Parser;
+import com.vaticle.typeql.lang.parser.PreparedQuery;
+import com.vaticle.typeql.lang.parser.ValidationError;
 import com.vaticle.typeql.lang.pattern.Conjunction;
 import com.vaticle.typeql.lang.pattern.Pattern;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
@@ -39,10 +45,25 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typedb.common.collection.Collections.pair;
@@ -65,6 +86,10 @@ import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.core.AllOf.allOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -390,6 +415,41 @@ public class ParserTest {
         TypeQLMatch parsed = TypeQL.parseQuery(query).asMatch();
     }
 
+    @Test
+    public void whenParsingDate_HandleLeapDaysAndSignedYears() {
+        final String query = "match\n$x has release-date 2000-02-29, has founded -0044-03-15T12:30;";
+        TypeQLMatch parsed = TypeQL.parseQuery(query).asMatch();
+        TypeQLMatch expected = match(var("x").has("release-date", LocalDateTime.of(2000, 2, 29, 0, 0))
+                                             .has("founded", LocalDateTime.of(-44, 3, 15, 12, 30)));
+        assertEquals(expected, parsed);
+    }
+
+    @Test
+    public void whenParsingDate_ErrorWhenDayIsOutOfRange() {
+        final String query = "match\n$x has release-date 2001-02-29;";
+        exception.expect(TypeQLException.class);
+        exception.expectMessage(Matchers.containsString("Illegal grammar"));
+        TypeQL.parseQuery(query);
+    }
+
+    @Test
+    public void whenParsingNumbers_ValuesMatchJavaConversions() {
+        final String query = "match\n$x has balance 9223372036854775807, has score 0.1, has ratio -123456789.0123456789;";
+        TypeQLMatch parsed = TypeQL.parseQuery(query).asMatch();
+        TypeQLMatch expected = match(var("x").has("balance", Long.MAX_VALUE)
+                                             .has("score", 0.1)
+                                             .has("ratio", Double.parseDouble("-123456789.0123456789")));
+        assertEquals(expected, parsed);
+    }
+
+    @Test
+    public void whenParsingLong_ErrorWhenValueOverflows() {
+        final String query = "match\n$x has balance 9223372036854775808;";
+        exception.expect(TypeQLException.class);
+        exception.expectMessage(Matchers.containsString("Illegal grammar"));
+        TypeQL.parseQuery(query);
+    }
+
     @Test
     public void whenParsingDateTime_ErrorWhenHandlingOverPreciseNanos() {
         exception.expect(TypeQLException.class);
@@ -1072,6 +1132,32 @@ public class ParserTest {
         parseQuery("match\n$x isa");
     }
 
+    @Test
+    public void whenParseIncorrectSyntaxWithCheapErrors_ThrowTypeQLSyntaxExceptionAtFirstOffendingToken() {
+        exception.expect(TypeQLException.class);
+        exception.expectMessage(allOf(
+                containsString("syntax error"), containsString("line 2"),
+                containsString("\n$x isa"),
+                containsString("\n      ^")
+        ));
+        //noinspection ResultOfMethodCallIgnored
+        new Parser(Parser.Options.defaults().cheapErrors(true)).parseQueryEOF("match\n$x isa");
+    }
+
+    @Test
+    public void whenParseIncorrectSyntax_ReportUnrecognisedCharacterFromFirstPassTokens() {
+        // The lexer turns any character it does not recognise into a token, which the retry reuses
+        exception.expect(TypeQLException.class);
+        exception.expectMessage(allOf(
+                containsString("syntax error"),
+                containsString("line 2"),
+                containsString("$y isa ~ ;\n       ^"),
+                containsString("no viable alternative at input 'match $x isa person;\\n$y isa ~'")
+        ));
+        //noinspection ResultOfMethodCallIgnored
+        parseQuery("match $x isa person;\n$y isa ~ ;");
+    }
+
     @Test
     public void whenParseIncorrectSyntax_TrailingQueryWhitespaceIsIgnored() {
         exception.expect(TypeQLException.class);
@@ -1197,6 +1283,633 @@ public class ParserTest {
         assertEquals(Collections.nCopies(numQueries, matchInsert), queries);
     }
 
+    @Test
+    public void testParseListFromReader() {
+        final String script = "define\nperson sub entity;\nrule r: when { $x isa person; } then { $x has name 'match'; };\n" +
+                "insert $x isa movie, has title 'a; insert';\ninsert $y isa movie;\n" +
+                "match $x isa person; insert $x has name 'bob';\n" +
+                "match $insert isa person, has name 'a'; delete $insert has name 'a'; insert $insert has name 'b';\n" +
+                "match $y isa movie; get $y; count;\n# trailing comment\n";
+        List<TypeQLQuery> expected = TypeQL.parseQueries(script).collect(toList());
+        List<TypeQLQuery> queries = TypeQL.parseQueries(new StringReader(script)).collect(toList());
+
+        assertEquals(6, expected.size());
+        assertEquals(expected, queries);
+    }
+
+    @Test
+    public void testParseListFromMappedFile() throws IOException {
+        final String script = "insert $x isa movie, has title 'caf\u00e9 # not a comment';\n" +
+                "match $x isa movie; insert $x has title 'sequel';\n" +
+                "match $y isa movie; get $y; count;\n";
+        Path file = Files.createTempFile("queries", ".tql");
+        try {
+            Files.write(file, script.getBytes(StandardCharsets.UTF_8));
+            List<TypeQLQuery> queries;
+            try (Stream<TypeQLQuery> stream = TypeQL.parseQueries(file)) {
+                queries = stream.collect(toList());
+            }
+            assertEquals(TypeQL.parseQueries(script).collect(toList()), queries);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testParseIllFormedUtf8FromMappedFileAsReplacementCharacters() throws IOException {
+        ByteArrayOutputStream script = new ByteArrayOutputStream();
+        script.write("insert $x isa movie, has title '".getBytes(StandardCharsets.UTF_8));
+        script.write(new byte[]{
+                (byte) 0xE0, (byte) 0x80, (byte) 0x80, // overlong encoding of U+0000
+                (byte) 0xED, (byte) 0xA0, (byte) 0x80, // surrogate U+D800
+                (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, // U+110000, above the last code point
+                (byte) 0xC3, (byte) 0xA9 // well-formed U+00E9
+        });
+        script.write("';\n".getBytes(StandardCharsets.UTF_8));
+        Path file = Files.createTempFile("queries", ".tql");
+        try {
+            Files.write(file, script.toByteArray());
+            List<TypeQLQuery> queries;
+            try (Stream<TypeQLQuery> stream = TypeQL.parseQueries(file)) {
+                queries = stream.collect(toList());
+            }
+            String title = "\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD\uFFFD\u00e9";
+            assertEquals(list(insert(var("x").isa("movie").has("title", title))), queries);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void whenParsingAListOfQueriesFromReaderWithASyntaxError_ReportScriptLine() {
+        final String script = "insert $x isa movie;\ninsert $y isa movie;\nmatch\n$z isa movie get;";
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("line 4");
+
+        //noinspection ResultOfMethodCallIgnored
+        TypeQL.parseQueries(new StringReader(script)).collect(toList());
+    }
+
+    @Test
+    public void testParseListInParallelKeepsSourceOrder() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            script.append("match\n$x isa person, has age ").append(i).append("; insert $x has name 'bob';\n");
+        }
+        List<TypeQLQuery> expected = TypeQL.parseQueries(script.toString()).collect(toList());
+        List<TypeQLQuery> queries = TypeQL.parseQueries(new StringReader(script.toString()), ForkJoinPool.commonPool())
+                .collect(toList());
+
+        assertEquals(expected, queries);
+    }
+
+    @Test
+    public void whenParsingAListOfQueriesInParallelWithSyntaxErrors_ReportEarliestError() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            if (i == 500 || i == 900) script.append("insert $x isa;\n");
+            else script.append("insert $x isa movie;\n");
+        }
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("line 501");
+
+        //noinspection ResultOfMethodCallIgnored
+        TypeQL.parseQueries(new StringReader(script.toString()), ForkJoinPool.commonPool()).collect(toList());
+    }
+
+    @Test
+    public void whenParsingAsynchronously_ReturnSameQueries() {
+        String query = "match $x isa movie, has title 'Godfather';";
+        assertEquals(parseQuery(query), TypeQL.parseQueryAsync(query).join());
+        assertEquals(parseQuery(query), TypeQL.parseQueryAsync(query, ForkJoinPool.commonPool()).join());
+    }
+
+    @Test
+    public void whenPublishingAListOfQueries_OnlyParseAsRequested() {
+        String script = "insert $x isa movie;\ninsert $y isa movie;\ninsert $z isa movie;\n";
+        List<TypeQLQuery> expected = TypeQL.parseQueries(script).collect(toList());
+        List<TypeQLQuery> received = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        boolean[] completed = new boolean[1];
+
+        TypeQL.<TypeQLQuery>parseQueriesAsync(new StringReader(script), Runnable::run).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(TypeQLQuery query) {
+                received.add(query);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                errors.add(error);
+            }
+
+            @Override
+            public void onComplete() {
+                completed[0] = true;
+            }
+        });
+
+        assertTrue(received.isEmpty());
+        subscription[0].request(1);
+        assertEquals(expected.subList(0, 1), received);
+        subscription[0].request(2);
+        assertEquals(expected, received);
+        assertTrue(completed[0]);
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void whenParsingQueryOverTokenLimit_Throw() {
+        Parser parser = new Parser(Parser.Options.defaults().fastPath(false)
+                                           .limits(ParseLimits.none().maxTokens(10)));
+        assertNotNull(parser.parseQueryEOF("match $x isa person;"));
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("limit of 10 tokens");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF("match $x isa person, has name 'alice', has age 10;");
+    }
+
+    @Test
+    public void whenParsingQueryOverInputLengthLimit_Throw() {
+        Parser parser = new Parser(Parser.Options.defaults().limits(ParseLimits.none().maxInputLength(16)));
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("limit of 16 characters");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF("insert $x isa person;");
+    }
+
+    @Test
+    public void whenParsingQueryPaddedWithWhitespaceAndCommentsOverInputLengthLimit_Throw() {
+        Parser parser = new Parser(Parser.Options.defaults().limits(ParseLimits.none().maxInputLength(100)));
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) padding.append("          ");
+        String query = "match" + padding + "$x isa person;";
+        String commented = "match $x isa person;\n#" + padding + "comment";
+
+        try {
+            parser.parseQueryEOF(query);
+            fail();
+        } catch (TypeQLException e) {
+            assertTrue(e.getMessage().contains("limit of 100 characters"));
+        }
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("limit of 100 characters");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF(commented);
+    }
+
+    @Test
+    public void whenParsingQueryOverNestingLimit_Throw() {
+        String pattern = "$x isa thing;";
+        for (int i = 0; i < 4; i++) pattern = "{ " + pattern + " } or { $x isa thing; };";
+        Parser parser = new Parser(Parser.Options.defaults().limits(ParseLimits.none().maxNestingDepth(3)));
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("deeper than the parser limit of 3");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF("match " + pattern);
+    }
+
+    @Test
+    public void whenParsingQueryPastDeadline_Throw() {
+        Parser parser = new Parser(Parser.Options.defaults().fastPath(false)
+                                           .limits(ParseLimits.none().timeout(Duration.ZERO)));
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("time limit");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF("insert $x isa person" + ", has name 'alice'".repeat(20) + ";");
+    }
+
+    @Test
+    public void whenParsingOnInterruptedThread_Throw() {
+        Parser parser = new Parser(Parser.Options.defaults().fastPath(false)
+                                           .limits(ParseLimits.none().interruptible(true)));
+        Thread.currentThread().interrupt();
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            parser.parseQueryEOF("insert $x isa person" + ", has name 'alice'".repeat(20) + ";");
+            fail();
+        } catch (TypeQLException e) {
+            assertTrue(e.getMessage().contains("interrupted"));
+        } finally {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test
+    public void whenParsingInvalidQueryPastDeadline_ThrowRatherThanRetry() {
+        Parser parser = new Parser(Parser.Options.defaults().limits(ParseLimits.none().timeout(Duration.ZERO)));
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("time limit");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF("match $x isa;");
+    }
+
+    @Test
+    public void whenDeadlinePassesWhileRetryingInvalidQuery_Throw() {
+        // The first pass stops at the error at the start of the query, and only the retry parses the rest of it
+        String query = "match $x isa; " + "$x has name 'alice';".repeat(50_000);
+        new Parser().parseQueryEOF("match $x isa person;");
+        Parser parser = new Parser(Parser.Options.defaults()
+                                           .limits(ParseLimits.none().timeout(Duration.ofMillis(20))));
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("time limit");
+        //noinspection ResultOfMethodCallIgnored
+        parser.parseQueryEOF(query);
+    }
+
+    @Test
+    public void testInstrumentationReportsEveryCallThroughTheParser() {
+        List<ParseInstrumentation.Metrics> reported = new ArrayList<>();
+        Parser parser = new Parser(Parser.Options.defaults().fastPath(false).instrumentation(reported::add));
+
+        parser.parseQueryEOF("match $x isa person;");
+        try {
+            parser.parseQueryEOF("match $x isa;");
+            fail();
+        } catch (TypeQLException ignored) {
+        }
+
+        assertEquals(2, reported.size());
+        ParseInstrumentation.Metrics parsed = reported.get(0);
+        assertTrue(parsed.succeeded());
+        assertFalse(parsed.fallback());
+        assertEquals(20, parsed.inputLength());
+        // Whitespace tokens are on the hidden channel, but still lexed
+        assertEquals(9, parsed.tokenCount());
+        assertTrue(parsed.lexNanos() > 0 && parsed.parseNanos() > 0);
+
+        ParseInstrumentation.Metrics failed = reported.get(1);
+        assertFalse(failed.succeeded());
+        assertTrue(failed.fallback());
+        assertTrue(failed.fallbackNanos() > 0);
+        assertEquals(0, failed.buildNanos());
+    }
+
+    @Test
+    public void testInstrumentationLexesOnlyAsFarAsTheParserReads() {
+        List<ParseInstrumentation.Metrics> reported = new ArrayList<>();
+        Parser parser = new Parser(Parser.Options.defaults().cheapErrors(true).instrumentation(reported::add));
+        StringBuilder query = new StringBuilder("match $x isa;");
+        for (int i = 0; i < 1000; i++) query.append(" $y").append(i).append(" isa person;");
+
+        try {
+            parser.parseQueryEOF(query.toString());
+            fail();
+        } catch (TypeQLException ignored) {
+        }
+
+        ParseInstrumentation.Metrics failed = reported.get(0);
+        assertFalse(failed.succeeded());
+        assertTrue(failed.tokenCount() < 100);
+        assertTrue(failed.inputLength() < query.length());
+    }
+
+    @Test
+    public void testValidateSyntaxOfWellFormedQueries() {
+        assertTrue(TypeQL.validateSyntax("match $x isa person, has name 'alice'; get $x;").isEmpty());
+        assertTrue(TypeQL.validateSyntax("define person sub entity, owns name;").isEmpty());
+        // Scope is only checked when the query is built
+        assertTrue(TypeQL.validateSyntax("match $x isa person; get $y;").isEmpty());
+    }
+
+    @Test
+    public void whenValidatingSyntaxOfMalformedQuery_ReportErrorWithPosition() {
+        List<ValidationError> errors = TypeQL.validateSyntax("match\n$x isa;");
+        assertFalse(errors.isEmpty());
+        assertTrue(errors.get(0).isSyntax());
+        assertEquals(2, errors.get(0).line());
+        assertEquals(6, errors.get(0).column());
+        assertTrue(errors.get(0).message().contains("syntax error"));
+    }
+
+    @Test
+    public void whenValidatingAScript_ReportEveryErrorWithItsPosition() {
+        String script = "insert $x isa person;\n" +
+                "insert $x isa;\n" +
+                "match $x isa person; get $y;\n" +
+                "insert $x isa person, has name \"alice\";\n" +
+                "  match $x isa;\n";
+
+        List<ValidationError> errors = TypeQL.validateQueries(new StringReader(script)).collect(toList());
+
+        assertEquals(3, errors.size());
+        assertTrue(errors.get(0).isSyntax());
+        assertEquals(2, errors.get(0).line());
+        assertEquals(13, errors.get(0).column());
+        assertFalse(errors.get(1).isSyntax());
+        assertEquals(3, errors.get(1).line());
+        assertEquals(0, errors.get(1).column());
+        assertTrue(errors.get(1).message().contains("$y"));
+        assertTrue(errors.get(2).isSyntax());
+        assertEquals(5, errors.get(2).line());
+        assertEquals(14, errors.get(2).column());
+    }
+
+    @Test
+    public void whenValidatingAValidScript_ReportNoErrors() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 100; i++) script.append("insert $x isa person, has name \"name-").append(i).append("\";\n");
+        assertEquals(0, TypeQL.validateQueries(new StringReader(script.toString())).count());
+    }
+
+    @Test
+    public void testFastPathIsIdenticalToAntlr() {
+        Parser fast = new Parser(Parser.Options.defaults().fastPath(true));
+        Parser antlr = new Parser();
+        List<String> queries = list(
+                "insert $x isa person, has name \"alice\", has age 30, has flag true;",
+                "match $x isa person;",
+                "match $x isa person, has name 'bob';",
+                "match\n$x isa person; # a comment\ninsert $x has age -5, has nickname $n;",
+                "match $_ has title $t;",
+                "insert $x isa person, has name \"escaped \\\" quote\";",
+                "match $x isa person; get $x;",
+                "match $x has release-date 2020-01-01;",
+                "insert $x isa person, has score 1.5;",
+                "match $x isa! person;",
+                "match $x isa entity;"
+        );
+        for (String query : queries) {
+            TypeQLQuery expected = antlr.parseQueryEOF(query);
+            TypeQLQuery parsed = fast.parseQueryEOF(query);
+            assertEquals(expected.getClass(), parsed.getClass());
+            assertEquals(expected, parsed);
+            assertEquals(expected.toString(), parsed.toString());
+        }
+        TypeQLMatch.Unfiltered match = fast.parseQueryEOF("match $x isa person;");
+        assertEquals(antlr.parseQueryEOF("match $x isa person; get $x; limit 1;"), match.get("x").limit(1));
+    }
+
+    @Test
+    public void whenEditingParsedScript_ReuseUnchangedQueriesAndDefinables() {
+        String script = "define\nperson sub entity, owns name;\nname sub attribute, value string;\n" +
+                "insert $y isa person, has name 'bob';\n" +
+                "match $x isa person; get $x;\n";
+        ParsedScript parsed = TypeQL.parseScript(script);
+        assertEquals(TypeQL.parseQueries(script).collect(toList()), parsed.queries());
+        assertTrue(parsed.errors().isEmpty());
+
+        int offset = script.indexOf("value string");
+        ParsedScript edited = parsed.edit(offset, "value string".length(), "value long");
+        assertEquals(TypeQL.parseQueries(edited.text()).collect(toList()), edited.queries());
+        TypeQLDefine define = edited.queries().get(0).asDefine();
+        assertSame(parsed.queries().get(0).asDefine().variables().get(0), define.variables().get(0));
+        assertNotSame(parsed.queries().get(0).asDefine().variables().get(1), define.variables().get(1));
+        assertSame(parsed.queries().get(1), edited.queries().get(1));
+        assertSame(parsed.queries().get(2), edited.queries().get(2));
+
+        ParsedScript broken = edited.edit(edited.text().indexOf("get $x"), 0, "$x isa;\n");
+        assertFalse(broken.errors().isEmpty());
+        assertEquals(5, broken.errors().get(0).line());
+        assertEquals(list(edited.queries().get(0), edited.queries().get(1)), broken.queries());
+        assertSame(edited.queries().get(1), broken.queries().get(1));
+    }
+
+    @Test
+    public void testEditingParsedScriptIsIdenticalToParsingItAgain() {
+        // Fragments are inserted at random offsets, so that edits join, split and break segments, and move the
+        // segments after them across lines
+        List<String> queries = list(
+                "define\nperson sub entity, owns name;\nname sub attribute, value string;\n",
+                "undefine person owns name;\n",
+                "insert $y isa person, has name 'bob';\n",
+                "match $x isa person; get $x;\n",
+                "match $x isa person; insert $x has name 'alice';\n",
+                "match\n  $x isa;\n"
+        );
+        List<String> fragments = list(
+                "match", "insert", "define", " $x isa person;", ", has age 10", ";", "\n", "\n\n  ", "'", "{",
+                "}", "# a comment; with a semicolon\n", "get $x;\n", "sub entity;", "$x isa;"
+        );
+        Random random = new Random(0);
+        for (int run = 0; run < 50; run++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 6; i++) text.append(queries.get(random.nextInt(queries.size())));
+            ParsedScript script = TypeQL.parseScript(text.toString());
+            for (int step = 0; step < 20; step++) {
+                int offset = random.nextInt(script.text().length() + 1);
+                int removed = random.nextInt(Math.min(8, script.text().length() - offset) + 1);
+                String inserted;
+                if (random.nextInt(4) == 0) inserted = queries.get(random.nextInt(queries.size()));
+                else if (random.nextBoolean()) inserted = fragments.get(random.nextInt(fragments.size()));
+                else inserted = "";
+                script = script.edit(offset, removed, inserted);
+
+                ParsedScript expected = TypeQL.parseScript(script.text());
+                String message = "run " + run + ", step " + step + ":\n" + script.text();
+                assertEquals(message, expected.queries(), script.queries());
+                assertEquals(message, expected.errors(), script.errors());
+            }
+        }
+    }
+
+    @Test
+    public void testAsciiLexerIsIdenticalToAntlrLexer() {
+        Parser ascii = new Parser(Parser.Options.defaults().asciiLexer(true));
+        Parser antlr = new Parser();
+        List<String> queries = list(
+                "match $x isa person, has name \"a \\\" \\\\ b\"; # comment\n$y isa! thing; get $x;",
+                "match $x sub! $t; $t sub relation, plays ownership:owner; $y like 'a\nb';",
+                "match\r\n$x has age >= -10, has height <= +1.5, has score != 0.25, has id < 3; $x is $y; sort $x desc;",
+                "insert $x iid 0x0123456789abcdef, has born 2000-02-29T23:59:59.999, has died -0044-03-15T12:30;",
+                "insert $x isa entit\u00e9, has n\u00e9v \"\u00dcnicode \u2713\"; $y isa \u540d\u524d;",
+                "define rule rule-a: when { $x isa thing; } then { $x has flag true; };",
+                "define person sub entity, owns name @key, plays employment:employee; name sub attribute, value string, regex \"^a\";",
+                "match $_ isa person, has name $x; $x has count 3; not { $x has value 5; }; get $x; group $x; count;"
+        );
+        for (String query : queries) {
+            TypeQLQuery expected = antlr.parseQueryEOF(query);
+            TypeQLQuery parsed = ascii.parseQueryEOF(query);
+            assertEquals(expected, parsed);
+            assertEquals(expected.toString(), parsed.toString());
+        }
+        List<String> invalid = list(
+                "match $x isa person, has name \"unterminated;",
+                "match $x isa person;\n  $y @ke thing;",
+                "match $x isa person, has born 2000-13-01;",
+                "match $ isa person;",
+                "match\n$x has release-date 1000-11-12T13:14:15.000123456;",
+                "match $x isa person;\n# comment\n$y isa person has name 'bob';"
+        );
+        for (String query : invalid) {
+            try {
+                antlr.parseQueryEOF(query);
+                fail();
+            } catch (TypeQLException expected) {
+                try {
+                    ascii.parseQueryEOF(query);
+                    fail();
+                } catch (TypeQLException e) {
+                    assertEquals(expected.getMessage(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDirectBuildIsIdenticalToParseTree() {
+        Parser direct = new Parser(Parser.Options.defaults().directBuild(true));
+        Parser tree = new Parser();
+        List<String> queries = list(
+                "insert $x isa person, has name \"alice\", has age 30, has flag true, has born 1990-01-01;",
+                "insert $x iid 0x0123456789abcdefdeadbeef; $x has name 'bob';",
+                "insert $r (employer: $c, $p) isa! employment, has since 2020-01-01T10:00;",
+                "insert $a \"alice\" isa name; 25 isa age, has checked true;",
+                "match $x isa person, has name contains \"al\", has age > $a; $n like \"^a.*\";" +
+                        "insert $x has nickname $n;",
+                "match $x isa person, has name 'alice'; delete $x isa person;",
+                "match $x isa person, has age 30; delete $x has age 30; insert $x has age 31;",
+                "match $x isa person; not { $x has name 'bob'; }; get $x; sort $x; limit 10;",
+                "define person sub entity, owns name; name sub attribute, value string;",
+                "undefine person owns name;"
+        );
+        for (String query : queries) {
+            TypeQLQuery expected = tree.parseQueryEOF(query);
+            TypeQLQuery parsed = direct.parseQueryEOF(query);
+            assertEquals(expected, parsed);
+            assertEquals(expected.toString(), parsed.toString());
+        }
+        String script = String.join("\n", queries);
+        assertEquals(tree.parseQueriesEOF(script).collect(toList()), direct.parseQueriesEOF(script).collect(toList()));
+    }
+
+    @Test
+    public void whenBuildingDirectly_HasVariableWithoutLabelIsIdenticalToParseTree() {
+        Parser direct = new Parser(Parser.Options.defaults().directBuild(true));
+        Parser tree = new Parser();
+        List<String> queries = list(
+                "match $x isa person; $a isa age; insert $x has $a;",
+                "match $x isa person, has $a; delete $x has $a;",
+                "match $x isa person, has age $a; delete $x has $a; insert $x has age 25;"
+        );
+        for (String query : queries) {
+            TypeQLQuery expected = tree.parseQueryEOF(query);
+            TypeQLQuery parsed = direct.parseQueryEOF(query);
+            assertEquals(expected, parsed);
+            assertEquals(expected.toString(), parsed.toString());
+        }
+    }
+
+    @Test
+    public void whenBuildingDirectly_ReportSyntaxErrorsBeforeInvalidQueries() {
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("syntax error");
+
+        //noinspection ResultOfMethodCallIgnored
+        new Parser(Parser.Options.defaults().directBuild(true))
+                .parseQueriesEOF("insert $x isa person, has age ?age;\ninsert $x isa;");
+    }
+
+    @Test
+    public void whenBuildingDirectly_ThrowInvalidQueryOnlyWhenReached() {
+        Parser parser = new Parser(Parser.Options.defaults().directBuild(true));
+        Iterator<TypeQLQuery> queries = parser.<TypeQLQuery>parseQueriesEOF(
+                "insert $x isa person;\ninsert $x isa person, has age ?age;"
+        ).iterator();
+        assertEquals(TypeQL.parseQuery("insert $x isa person;"), queries.next());
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("?age");
+        queries.next();
+    }
+
+    @Test
+    public void whenParsingInvalidQueryWithFastPath_FallBackToAntlrError() {
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("syntax error");
+
+        //noinspection ResultOfMethodCallIgnored
+        new Parser(Parser.Options.defaults().fastPath(true)).parseQueryEOF("insert $x isa person has name 'alice';");
+    }
+
+    @Test
+    public void testPreparedQueryBindsPlaceholders() {
+        PreparedQuery prepared = TypeQL.prepare("match $x isa person, has name ?name, has age > ?age; " +
+                                                        "$x has joined ?joined;");
+        assertEquals(list("name", "age", "joined"), list(prepared.parameters()));
+
+        TypeQLMatch bound = prepared.bind(Map.of("name", "alice", "age", 30, "joined", LocalDate.of(2020, 1, 1)));
+        TypeQLMatch expected = TypeQL.parseQuery("match $x isa person, has name \"alice\", has age > 30; " +
+                                                         "$x has joined 2020-01-01;");
+        assertEquals(expected, bound);
+        assertEquals(expected.toString(), bound.toString());
+    }
+
+    @Test
+    public void testBoundPreparedQueryIsLikeParsedQuery() {
+        List<String> templates = list(
+                "match $x isa person, has age ?age; get $x; sort $x; limit 10;",
+                "match $x isa person, has name ?name; $n ?name isa name; group $x; count;",
+                "match $x isa person, has age ?age; not { $x has name ?name; }; insert $x has score 1.5;",
+                "match $x isa person, has name $n; $n ?name; delete $x has $n; insert $x has name ?renamed;",
+                "define rule adult: when { $x isa person, has age >= ?age; } then { $x has adult true; };"
+        );
+        List<String> queries = list(
+                "match $x isa person, has age 30; get $x; sort $x; limit 10;",
+                "match $x isa person, has name \"alice\"; $n \"alice\" isa name; group $x; count;",
+                "match $x isa person, has age 30; not { $x has name \"alice\"; }; insert $x has score 1.5;",
+                "match $x isa person, has name $n; $n \"alice\"; delete $x has $n; insert $x has name \"bob\";",
+                "define rule adult: when { $x isa person, has age >= 30; } then { $x has adult true; };"
+        );
+        Map<String, Object> bindings = Map.of("age", 30, "name", "alice", "renamed", "bob");
+        for (int i = 0; i < templates.size(); i++) {
+            PreparedQuery prepared = TypeQL.prepare(templates.get(i));
+            Map<String, Object> used = new HashMap<>(bindings);
+            used.keySet().retainAll(prepared.parameters());
+            TypeQLQuery bound = prepared.bind(used);
+            TypeQLQuery expected = parseQuery(queries.get(i));
+            assertEquals(expected.getClass(), bound.getClass());
+            assertEquals(expected, bound);
+            assertEquals(expected.toString(), bound.toString());
+        }
+    }
+
+    @Test
+    public void testBoundPreparedQueriesShareStatementsWithoutPlaceholders() {
+        PreparedQuery prepared = TypeQL.prepare("match $x isa person, has name ?name; $y isa company;");
+        TypeQLMatch alice = prepared.bind(Map.of("name", "alice"));
+        TypeQLMatch bob = prepared.bind(Map.of("name", "bob"));
+
+        assertNotSame(alice.conjunction().patterns().get(0), bob.conjunction().patterns().get(0));
+        assertSame(alice.conjunction().patterns().get(1), bob.conjunction().patterns().get(1));
+        assertEquals(parseQuery("match $x isa person, has name \"alice\"; $y isa company;"), alice);
+        assertEquals(parseQuery("match $x isa person, has name \"bob\"; $y isa company;"), bob);
+    }
+
+    @Test
+    public void whenBindingPreparedQueryWithMissingValue_Throw() {
+        PreparedQuery prepared = TypeQL.prepare("insert $x isa person, has name ?name, has age ?age;");
+
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("?age");
+
+        //noinspection ResultOfMethodCallIgnored
+        prepared.bind(Map.of("name", "alice"));
+    }
+
+    @Test
+    public void whenParsingQueryWithPlaceholder_Throw() {
+        exception.expect(TypeQLException.class);
+        exception.expectMessage("?name");
+
+        //noinspection ResultOfMethodCallIgnored
+        TypeQL.parseQuery("match $x isa person, has name ?name;");
+    }
+
     @Test
     public void whenParsingAListOfQueriesWithASyntaxError_ReportError() {
         final String queryText = "define\nperson sub entity has name;"; // note no semicolon
@@ -1316,6 +2029,89 @@ public class ParserTest {
         assertEquals(expected, parsed);
     }
 
+    @Test
+    public void whenInterningIsEnabled_IdenticalNamesAndLabelsShareOneInstance() {
+        TypeQL.enableInterning(64);
+        try {
+            TypeQLInsert first = parseQuery("insert $person isa person;");
+            TypeQLInsert second = parseQuery("insert $person isa person;");
+            ThingVariable<?> firstVar = first.variables().get(0);
+            ThingVariable<?> secondVar = second.variables().get(0);
+            assertSame(firstVar.name(), secondVar.name());
+            assertSame(firstVar.isa().get().type().label().get().label(),
+                    secondVar.isa().get().type().label().get().label());
+        } finally {
+            TypeQL.disableInterning();
+        }
+        TypeQLInsert first = parseQuery("insert $person isa person;");
+        TypeQLInsert second = parseQuery("insert $person isa person;");
+        assertNotSame(first.variables().get(0).name(), second.variables().get(0).name());
+    }
+
+    @Test
+    public void whenHashConsingIsEnabled_IdenticalConstraintsShareOneInstance() {
+        TypeQL.enableHashConsing(1 << 16);
+        try {
+            TypeQLMatch first = parseQuery("match $p isa person, has name 'alice'; get $p;");
+            TypeQLMatch second = parseQuery("match $q isa person, has name 'alice'; get $q;");
+            ThingVariable<?> firstVar = first.conjunction().patterns().get(0).asVariable().asThing();
+            ThingVariable<?> secondVar = second.conjunction().patterns().get(0).asVariable().asThing();
+            assertNotSame(firstVar, secondVar);
+            assertSame(firstVar.isa().get().type().label().get(), secondVar.isa().get().type().label().get());
+            assertSame(firstVar.has().get(0).attribute().value().get(),
+                       secondVar.has().get(0).attribute().value().get());
+        } finally {
+            TypeQL.disableHashConsing();
+        }
+        TypeQLMatch first = parseQuery("match $p isa person; get $p;");
+        TypeQLMatch second = parseQuery("match $p isa person; get $p;");
+        assertNotSame(first.conjunction().patterns().get(0).asVariable().asThing().isa().get().type().label().get(),
+                      second.conjunction().patterns().get(0).asVariable().asThing().isa().get().type().label().get());
+    }
+
+    @Test
+    public void whenHashConsingIsEnabled_IdenticalPatternsShareOneFrozenInstance() {
+        TypeQL.enableHashConsing(1 << 16);
+        try {
+            String query = "match $p isa person, has name 'alice'; $e (employee: $p) isa employment; get $p;";
+            TypeQLMatch first = parseQuery(query);
+            TypeQLMatch second = parseQuery("match $p isa person, has name 'alice'; " +
+                                                    "not { $e (employee: $p) isa employment; }; get $p;");
+            ThingVariable.Thing firstVar = (ThingVariable.Thing) first.conjunction().patterns().get(0);
+            ThingVariable.Thing secondVar = (ThingVariable.Thing) second.conjunction().patterns().get(0);
+            assertSame(firstVar, secondVar);
+            assertSame(first.conjunction().patterns().get(1),
+                       second.conjunction().patterns().get(1).asNegation().pattern());
+            assertTrue(firstVar.isFrozen());
+            assertSame(first.conjunction(), TypeQL.<TypeQLMatch>parseQuery(query).conjunction());
+
+            assertFrozen(() -> firstVar.has("age", 30));
+            assertFrozen(() -> firstVar.isa().get().type().sub("entity"));
+            ThingVariable.Relation employment = (ThingVariable.Relation) first.conjunction().patterns().get(1);
+            assertFrozen(() -> employment.rel("employer", "c"));
+            assertFrozen(() -> employment.relation().get().setScope("contract"));
+            assertEquals(1, secondVar.has().size());
+        } finally {
+            TypeQL.disableHashConsing();
+        }
+        TypeQLMatch first = parseQuery("match $p isa person; get $p;");
+        TypeQLMatch second = parseQuery("match $p isa person; get $p;");
+        ThingVariable.Thing firstVar = (ThingVariable.Thing) first.conjunction().patterns().get(0);
+        assertNotSame(firstVar, second.conjunction().patterns().get(0));
+        assertFalse(firstVar.isFrozen());
+        firstVar.has("name", "alice");
+        assertEquals("$p isa person", second.conjunction().patterns().get(0).toString());
+    }
+
+    private static void assertFrozen(Runnable modification) {
+        try {
+            modification.run();
+            fail();
+        } catch (TypeQLException e) {
+            assertTrue(e.getMessage().contains("shared between queries by hash-consing"));
+        }
+    }
+
     private static void assertParseEquivalence(String query) {
         assertEquals(query, parseQuery(query).toString());
     }
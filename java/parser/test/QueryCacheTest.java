@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser.test;
+
+import com.vaticle.typeql.lang.TypeQL;
+import com.vaticle.typeql.lang.parser.QueryCache;
+import com.vaticle.typeql.lang.query.TypeQLQuery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class QueryCacheTest {
+
+    private static final String QUERY_A = "match $x isa person;";
+    private static final String QUERY_B = "match $y isa movie;";
+    private static final String QUERY_C = "match $z isa company;";
+
+    @Test
+    public void testRepeatedQueryIsServedFromCache() {
+        QueryCache cache = new QueryCache(10, 1000);
+        TypeQLQuery first = cache.get(QUERY_A, TypeQL::parseQuery);
+        TypeQLQuery second = cache.get(QUERY_A, TypeQL::parseQuery);
+
+        assertSame(first, second);
+        assertEquals(1, cache.statistics().hits());
+        assertEquals(1, cache.statistics().misses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedQueryIsEvictedBySize() {
+        QueryCache cache = new QueryCache(2, 1000);
+        TypeQLQuery a = cache.get(QUERY_A, TypeQL::parseQuery);
+        cache.get(QUERY_B, TypeQL::parseQuery);
+        cache.get(QUERY_A, TypeQL::parseQuery);
+        cache.get(QUERY_C, TypeQL::parseQuery);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.statistics().evictions());
+        assertSame(a, cache.get(QUERY_A, TypeQL::parseQuery));
+    }
+
+    @Test
+    public void testQueriesAreEvictedByWeight() {
+        QueryCache cache = new QueryCache(10, QUERY_B.length() + QUERY_C.length());
+        cache.get(QUERY_A, TypeQL::parseQuery);
+        cache.get(QUERY_B, TypeQL::parseQuery);
+        cache.get(QUERY_C, TypeQL::parseQuery);
+
+        assertEquals(2, cache.size());
+        assertEquals(QUERY_B.length() + QUERY_C.length(), cache.weight());
+    }
+
+    @Test
+    public void testTypeQLParseQueryUsesConfiguredCache() {
+        try {
+            TypeQL.enableQueryCache(10, 1000);
+            TypeQLQuery first = TypeQL.parseQuery(QUERY_A);
+            assertSame(first, TypeQL.parseQuery(QUERY_A));
+            assertEquals(1, TypeQL.queryCache().get().statistics().hits());
+
+            TypeQL.disableQueryCache();
+            assertNotSame(first, TypeQL.parseQuery(QUERY_A));
+            assertEquals(first, TypeQL.parseQuery(QUERY_A));
+        } finally {
+            TypeQL.disableQueryCache();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.parser.test;
+
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.parser.WarmUp;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.vaticle.typedb.common.collection.Collections.list;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WarmUpTest {
+
+    @Test
+    public void testBuiltInCorpusParses() {
+        WarmUp.Snapshot snapshot = WarmUp.warmUp();
+
+        assertEquals(0, snapshot.failed());
+        assertTrue(snapshot.parsed() > 0);
+        assertTrue(snapshot.queries().size() <= snapshot.parsed());
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        WarmUp.Snapshot snapshot = WarmUp.warmUp();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        snapshot.write(output);
+        WarmUp.Snapshot read = WarmUp.Snapshot.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(snapshot.queries(), read.queries());
+        assertEquals(0, read.replay().failed());
+    }
+
+    @Test
+    public void testReadingSnapshotWithCorruptQueryLengthFails() throws IOException {
+        for (int length : new int[]{-1, Integer.MAX_VALUE}) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0x54514C57);
+            output.writeInt(1);
+            output.writeInt(1);
+            output.writeInt(length);
+            assertInvalidSnapshot(bytes.toByteArray());
+        }
+    }
+
+    @Test
+    public void testReadingTruncatedSnapshotFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(0x54514C57);
+        output.writeInt(1);
+        output.writeInt(1);
+        output.writeInt(20);
+        output.write("match $x isa person;".getBytes(StandardCharsets.UTF_8));
+        byte[] snapshot = bytes.toByteArray();
+        assertEquals(list("match $x isa person;"), WarmUp.Snapshot.read(new ByteArrayInputStream(snapshot)).queries());
+
+        assertInvalidSnapshot(Arrays.copyOf(snapshot, snapshot.length - 1));
+    }
+
+    private static void assertInvalidSnapshot(byte[] bytes) throws IOException {
+        try {
+            WarmUp.Snapshot.read(new ByteArrayInputStream(bytes));
+            fail();
+        } catch (TypeQLException e) {
+            assertTrue(e.getMessage().contains("Invalid parser warm-up snapshot"));
+        }
+    }
+}
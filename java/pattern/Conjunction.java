@@ -24,20 +24,23 @@ package com.vaticle.typeql.lang.pattern;
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.ErrorMessage;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.util.ConstraintInterner;
 import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
-import com.vaticle.typeql.lang.pattern.variable.Variable;
 
-import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.CURLY_CLOSE;
@@ -48,7 +51,10 @@ import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SEMICOLON_NEW_LINE
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SEMICOLON_SPACE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SPACE;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.MATCH_HAS_UNBOUNDED_NESTED_PATTERN;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.NORMALISATION_LIMIT_EXCEEDED;
 import static com.vaticle.typeql.lang.common.util.Strings.indent;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.concat;
 
@@ -56,15 +62,21 @@ public class Conjunction<T extends Pattern> implements Pattern {
 
     private final List<T> patterns;
     private final int hash;
-    private Disjunction<Conjunction<Conjunctable>> normalised;
+    private volatile Disjunction<Conjunction<Conjunctable>> normalised;
+    private volatile VariableIndex variableIndex;
 
     public Conjunction(List<T> patterns) {
         if (patterns == null) throw new NullPointerException("Null patterns");
-        this.patterns = patterns.stream().map(Objects::requireNonNull).collect(toList());
-        this.hash = Objects.hash(this.patterns);
+        this.patterns = patterns.stream().map(Objects::requireNonNull).map(ConstraintInterner::intern)
+                .collect(toList());
+        this.hash = Objects.hash(Conjunction.class, this.patterns);
     }
 
     public Stream<BoundVariable> variables() {
+        return variableIndex().variables().stream();
+    }
+
+    Stream<BoundVariable> collectVariables() {
         return patterns.stream().flatMap(pattern -> {
             if (pattern.isVariable()) return concat(Stream.of(pattern.asVariable()), pattern.asVariable().variables());
             else if (pattern.isConjunction()) return pattern.asConjunction().variables();
@@ -73,7 +85,15 @@ public class Conjunction<T extends Pattern> implements Pattern {
     }
 
     public Stream<UnboundVariable> namedVariablesUnbound() {
-        return variables().filter(Variable::isNamed).map(v -> UnboundVariable.named(v.name())).distinct();
+        return variableIndex().named().stream();
+    }
+
+    /**
+     * The index of the variables of this conjunction, which is computed on first use and then kept.
+     */
+    public VariableIndex variableIndex() {
+        if (variableIndex == null) variableIndex = VariableIndex.of(this);
+        return variableIndex;
     }
 
     @Override
@@ -83,17 +103,30 @@ public class Conjunction<T extends Pattern> implements Pattern {
 
     @Override
     public void validateIsBoundedBy(Set<UnboundVariable> bounds) {
-        if (variables().noneMatch(v -> bounds.contains(v.toUnbound()))) {
+        if (!variableIndex().isReferencedBy(bounds)) {
             String str = toString().replace("\n", " ");
             throw TypeQLException.of(MATCH_HAS_UNBOUNDED_NESTED_PATTERN.message(str));
         }
         HashSet<UnboundVariable> union = new HashSet<>(bounds);
-        union.addAll(variables().map(BoundVariable::toUnbound).collect(Collectors.toSet()));
+        union.addAll(variableIndex().references());
         patterns.stream().filter(pattern -> !pattern.isVariable()).forEach(pattern -> {
             pattern.validateIsBoundedBy(union);
         });
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Conjunction<T> substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        List<T> substituted = new ArrayList<>(patterns.size());
+        boolean replaced = false;
+        for (T pattern : patterns) {
+            T substitutedPattern = (T) pattern.substitute(values);
+            replaced |= substitutedPattern != pattern;
+            substituted.add(substitutedPattern);
+        }
+        return replaced ? new Conjunction<>(substituted) : this;
+    }
+
     public static <U extends Pattern> Conjunction<U> merge(List<Conjunction<U>> conjunctions) {
         return new Conjunction<>(conjunctions.stream().flatMap(p -> p.patterns().stream()).collect(toList()));
     }
@@ -101,23 +134,75 @@ public class Conjunction<T extends Pattern> implements Pattern {
     @Override
     public Disjunction<Conjunction<Conjunctable>> normalise() {
         if (normalised == null) {
-            List<Conjunctable> conjunctables = new ArrayList<>();
-            List<List<Conjunction<Conjunctable>>> listOfDisj = new ArrayList<>();
-            patterns.forEach(pattern -> {
-                if (pattern.isVariable()) conjunctables.add(pattern.asVariable().normalise());
-                else if (pattern.isNegation()) conjunctables.add(pattern.asNegation().normalise());
-                else if (pattern.isConjunction()) listOfDisj.add(pattern.asConjunction().normalise().patterns());
-                else listOfDisj.add(pattern.asDisjunction().normalise().patterns());
-            });
-            listOfDisj.add(list(new Conjunction<>(conjunctables)));
-            List<Conjunction<Conjunctable>> listOfConjunctions = new CartesianList<>(listOfDisj)
-                    .stream().map(Conjunction::merge)
-                    .collect(toList());
+            List<Conjunction<Conjunctable>> listOfConjunctions = new ArrayList<>();
+            normalisedIterator(false).forEachRemaining(listOfConjunctions::add);
             normalised = new Disjunction<>(listOfConjunctions);
         }
         return normalised;
     }
 
+    /**
+     * Normalises this conjunction like {@link #normalise()}, but first checks {@link #normalisedSize()} against
+     * {@code maxConjunctions}, and throws rather than building a normal form with more conjunctions than that.
+     */
+    public Disjunction<Conjunction<Conjunctable>> normalise(long maxConjunctions) {
+        if (normalised == null) {
+            long size = normalisedSize();
+            if (size > maxConjunctions) {
+                throw TypeQLException.of(NORMALISATION_LIMIT_EXCEEDED.message(size, maxConjunctions));
+            }
+        }
+        return normalise();
+    }
+
+    /**
+     * Streams the conjunctions of the normal form of this conjunction one at a time, in the order of
+     * {@link #normalise()}. Nothing is memoised: nested patterns are normalised again for every conjunction they
+     * take part in, so memory use is bounded by the size of the pattern rather than the size of its normal form.
+     */
+    public Stream<Conjunction<Conjunctable>> normaliseLazily() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(normalisedIterator(true), ORDERED | NONNULL), false);
+    }
+
+    /**
+     * Factorises this conjunction into a {@link FactoredConjunction}, which normalises each nested disjunction
+     * separately rather than expanding their Cartesian product.
+     */
+    public FactoredConjunction factorise() {
+        return FactoredConjunction.of(this);
+    }
+
+    Iterator<Conjunction<Conjunctable>> normalisedIterator() {
+        return normalisedIterator(true);
+    }
+
+    private Iterator<Conjunction<Conjunctable>> normalisedIterator(boolean lazily) {
+        List<Conjunctable> conjunctables = new ArrayList<>();
+        List<Supplier<Iterator<Conjunction<Conjunctable>>>> axes = new ArrayList<>();
+        patterns.forEach(pattern -> {
+            if (pattern.isVariable()) conjunctables.add(pattern.asVariable().normalise());
+            else if (pattern.isNegation()) conjunctables.add(pattern.asNegation().normalise());
+            else if (lazily && pattern.isConjunction()) axes.add(pattern.asConjunction()::normalisedIterator);
+            else if (lazily) axes.add(pattern.asDisjunction()::normalisedIterator);
+            else if (pattern.isConjunction()) axes.add(pattern.asConjunction().normalise().patterns()::iterator);
+            else axes.add(pattern.asDisjunction().normalise().patterns()::iterator);
+        });
+        List<Conjunction<Conjunctable>> conjunction = list(new Conjunction<>(conjunctables));
+        axes.add(conjunction::iterator);
+        return new CartesianIterator(axes);
+    }
+
+    @Override
+    public long normalisedSize() {
+        long size = 1;
+        for (T pattern : patterns) {
+            long factor = pattern.normalisedSize();
+            if (factor != 0 && size > Long.MAX_VALUE / factor) return Long.MAX_VALUE;
+            size *= factor;
+        }
+        return size;
+    }
+
     @Override
     public boolean isConjunction() { return true; }
 
@@ -157,49 +242,56 @@ public class Conjunction<T extends Pattern> implements Pattern {
         return hash;
     }
 
-    private static class CartesianList<E> extends AbstractList<List<E>> {
+    /**
+     * Iterates over the merged rows of the Cartesian product of its axes, with the last axis varying fastest.
+     * Only the current row is held: when an axis wraps around, it is restarted from its supplier.
+     */
+    private static class CartesianIterator implements Iterator<Conjunction<Conjunctable>> {
 
-        private final transient List<List<E>> axes;
-        private final transient int[] axesSizeProduct;
-        private final Map<Integer, List<E>> computed;
+        private final List<Supplier<Iterator<Conjunction<Conjunctable>>>> axes;
+        private final List<Iterator<Conjunction<Conjunctable>>> iterators;
+        private final List<Conjunction<Conjunctable>> row;
+        private boolean hasNext;
 
-        CartesianList(List<List<E>> axes) {
+        CartesianIterator(List<Supplier<Iterator<Conjunction<Conjunctable>>>> axes) {
             this.axes = axes;
-            axesSizeProduct = new int[axes.size() + 1];
-            axesSizeProduct[axes.size()] = 1;
-            for (int i = axes.size() - 1; i >= 0; i--) {
-                axesSizeProduct[i] = axesSizeProduct[i + 1] * axes.get(i).size();
+            this.iterators = new ArrayList<>(axes.size());
+            this.row = new ArrayList<>(axes.size());
+            for (Supplier<Iterator<Conjunction<Conjunctable>>> axis : axes) {
+                Iterator<Conjunction<Conjunctable>> iterator = axis.get();
+                if (!iterator.hasNext()) throw TypeQLException.of(ErrorMessage.ILLEGAL_STATE);
+                row.add(iterator.next());
+                iterators.add(iterator);
             }
-            if (axesSizeProduct[0] == 0) throw TypeQLException.of(ErrorMessage.ILLEGAL_STATE);
-            computed = new HashMap<>();
+            this.hasNext = true;
         }
 
-        private int getAxisIndexForProductIndex(int index, int axis) {
-            return (index / axesSizeProduct[axis + 1]) % axes.get(axis).size();
+        @Override
+        public boolean hasNext() {
+            return hasNext;
         }
 
         @Override
-        public List<E> get(int index) {
-            if (index >= size()) throw new IndexOutOfBoundsException();
-
-            return computed.computeIfAbsent(index, i -> new AbstractList<E>() {
-
-                @Override
-                public int size() {
-                    return axes.size();
-                }
-
-                @Override
-                public E get(int axis) {
-                    if (axis >= size()) throw new IndexOutOfBoundsException();
-                    return axes.get(axis).get(getAxisIndexForProductIndex(i, axis));
-                }
-            });
+        public Conjunction<Conjunctable> next() {
+            if (!hasNext) throw new NoSuchElementException();
+            Conjunction<Conjunctable> merged = merge(row);
+            advance();
+            return merged;
         }
 
-        @Override
-        public int size() {
-            return axesSizeProduct[0];
+        private void advance() {
+            int axis = axes.size() - 1;
+            while (axis >= 0 && !iterators.get(axis).hasNext()) axis--;
+            if (axis < 0) {
+                hasNext = false;
+                return;
+            }
+            row.set(axis, iterators.get(axis).next());
+            for (int restarted = axis + 1; restarted < axes.size(); restarted++) {
+                Iterator<Conjunction<Conjunctable>> iterator = axes.get(restarted).get();
+                row.set(restarted, iterator.next());
+                iterators.set(restarted, iterator);
+            }
         }
     }
 }
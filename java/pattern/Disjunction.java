@@ -21,13 +21,21 @@
 
 package com.vaticle.typeql.lang.pattern;
 
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.util.ConstraintInterner;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterators;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.CURLY_CLOSE;
@@ -37,18 +45,21 @@ import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SEMICOLON;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SPACE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Operator.OR;
 import static com.vaticle.typeql.lang.common.util.Strings.indent;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
 import static java.util.stream.Collectors.toList;
 
 public class Disjunction<T extends Pattern> implements Pattern {
 
     private final List<T> patterns;
     private final int hash;
-    private Disjunction<Conjunction<Conjunctable>> normalised;
+    private volatile Disjunction<Conjunction<Conjunctable>> normalised;
 
     public Disjunction(List<T> patterns) {
         if (patterns == null) throw new NullPointerException("Null patterns");
-        this.patterns = patterns.stream().map(Objects::requireNonNull).collect(toList());
-        this.hash = Objects.hash(this.patterns);
+        this.patterns = patterns.stream().map(Objects::requireNonNull).map(ConstraintInterner::intern)
+                .collect(toList());
+        this.hash = Objects.hash(Disjunction.class, this.patterns);
     }
 
     @Override
@@ -61,6 +72,19 @@ public class Disjunction<T extends Pattern> implements Pattern {
         patterns.forEach(pattern -> pattern.validateIsBoundedBy(bounds));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Disjunction<T> substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        List<T> substituted = new ArrayList<>(patterns.size());
+        boolean replaced = false;
+        for (T pattern : patterns) {
+            T substitutedPattern = (T) pattern.substitute(values);
+            replaced |= substitutedPattern != pattern;
+            substituted.add(substitutedPattern);
+        }
+        return replaced ? new Disjunction<>(substituted) : this;
+    }
+
     @Override
     public Disjunction<Conjunction<Conjunctable>> normalise() {
         if (normalised == null) {
@@ -76,6 +100,51 @@ public class Disjunction<T extends Pattern> implements Pattern {
         return normalised;
     }
 
+    /**
+     * Streams the conjunctions of the normal form of this disjunction one at a time, like
+     * {@link Conjunction#normaliseLazily()}.
+     */
+    public Stream<Conjunction<Conjunctable>> normaliseLazily() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(normalisedIterator(), ORDERED | NONNULL), false);
+    }
+
+    Iterator<Conjunction<Conjunctable>> normalisedIterator() {
+        return new Iterator<>() {
+
+            private final Iterator<T> remaining = patterns.iterator();
+            private Iterator<Conjunction<Conjunctable>> branches = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!branches.hasNext() && remaining.hasNext()) {
+                    Pattern p = remaining.next();
+                    if (p.isVariable()) branches = list(new Conjunction<>(list(p.asConjunctable()))).iterator();
+                    else if (p.isNegation()) {
+                        branches = list(new Conjunction<>(list(p.asNegation().normalise().asConjunctable()))).iterator();
+                    } else if (p.isConjunction()) branches = p.asConjunction().normalisedIterator();
+                    else branches = p.asDisjunction().normalisedIterator();
+                }
+                return branches.hasNext();
+            }
+
+            @Override
+            public Conjunction<Conjunctable> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return branches.next();
+            }
+        };
+    }
+
+    @Override
+    public long normalisedSize() {
+        long size = 0;
+        for (T pattern : patterns) {
+            size += pattern.normalisedSize();
+            if (size < 0) return Long.MAX_VALUE;
+        }
+        return size;
+    }
+
     @Override
     public boolean isDisjunction() {
         return true;
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.pattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SEMICOLON;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SEMICOLON_NEW_LINE;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A factored normal form of a conjunction: a conjunctive core, and a list of disjunctive residues that are each in
+ * disjunctive normal form. The conjunction is equivalent to the core together with one conjunction from every
+ * residue, so its full normal form is the Cartesian product of the residues, which this form never builds.
+ *
+ * Conjunctables shared by every branch of a disjunction are hoisted into the core, so a planner can evaluate the
+ * core once and each residue independently. A disjunction that one of its branches satisfies without any further
+ * conjunctables is dropped, since the core alone satisfies it.
+ */
+public class FactoredConjunction {
+
+    private final Conjunction<Conjunctable> core;
+    private final List<Disjunction<Conjunction<Conjunctable>>> residues;
+    private final int hash;
+
+    private FactoredConjunction(List<Conjunctable> core, List<Disjunction<Conjunction<Conjunctable>>> residues) {
+        this.core = new Conjunction<>(core);
+        this.residues = residues;
+        this.hash = Objects.hash(this.core, this.residues);
+    }
+
+    public static FactoredConjunction of(Conjunction<? extends Pattern> conjunction) {
+        List<Conjunctable> core = new ArrayList<>();
+        List<Disjunction<Conjunction<Conjunctable>>> residues = new ArrayList<>();
+        factorise(conjunction, core, residues);
+        return new FactoredConjunction(core, residues);
+    }
+
+    /**
+     * Factorises a pattern already in disjunctive normal form, such as the result of {@link Conjunction#normalise()}.
+     */
+    public static FactoredConjunction of(Disjunction<Conjunction<Conjunctable>> normalised) {
+        List<Conjunctable> core = new ArrayList<>();
+        List<Disjunction<Conjunction<Conjunctable>>> residues = new ArrayList<>();
+        addResidue(normalised, core, residues);
+        return new FactoredConjunction(core, residues);
+    }
+
+    private static void factorise(Conjunction<? extends Pattern> conjunction, List<Conjunctable> core,
+                                  List<Disjunction<Conjunction<Conjunctable>>> residues) {
+        conjunction.patterns().forEach(pattern -> {
+            if (pattern.isVariable()) core.add(pattern.asVariable().normalise());
+            else if (pattern.isNegation()) core.add(pattern.asNegation().normalise());
+            else if (pattern.isConjunction()) factorise(pattern.asConjunction(), core, residues);
+            else addResidue(pattern.asDisjunction().normalise(), core, residues);
+        });
+    }
+
+    private static void addResidue(Disjunction<Conjunction<Conjunctable>> disjunction, List<Conjunctable> core,
+                                   List<Disjunction<Conjunction<Conjunctable>>> residues) {
+        List<Conjunction<Conjunctable>> branches = disjunction.patterns();
+        List<Conjunctable> shared = new ArrayList<>();
+        for (Conjunctable conjunctable : branches.get(0).patterns()) {
+            if (!shared.contains(conjunctable) &&
+                    branches.stream().allMatch(branch -> branch.patterns().contains(conjunctable))) {
+                shared.add(conjunctable);
+            }
+        }
+        shared.stream().filter(conjunctable -> !core.contains(conjunctable)).forEach(core::add);
+        if (shared.isEmpty()) {
+            residues.add(disjunction);
+            return;
+        }
+        List<Conjunction<Conjunctable>> remainders = new ArrayList<>(branches.size());
+        for (Conjunction<Conjunctable> branch : branches) {
+            List<Conjunctable> remainder = branch.patterns().stream()
+                    .filter(conjunctable -> !shared.contains(conjunctable)).collect(toList());
+            if (remainder.isEmpty()) return;
+            remainders.add(new Conjunction<>(remainder));
+        }
+        if (remainders.size() == 1) core.addAll(remainders.get(0).patterns());
+        else residues.add(new Disjunction<>(remainders));
+    }
+
+    public Conjunction<Conjunctable> core() {
+        return core;
+    }
+
+    public List<Disjunction<Conjunction<Conjunctable>>> residues() {
+        return residues;
+    }
+
+    /**
+     * The number of conjunctions in the disjunctive normal form of this factored form. Saturates at
+     * {@link Long#MAX_VALUE}.
+     */
+    public long normalisedSize() {
+        return asConjunction().normalisedSize();
+    }
+
+    /**
+     * Expands this factored form into disjunctive normal form. For a conjunction without nested conjunctions or
+     * conjunctables shared between the branches of its disjunctions, this is equal to {@link Conjunction#normalise()}.
+     */
+    public Disjunction<Conjunction<Conjunctable>> normalise() {
+        return asConjunction().normalise();
+    }
+
+    private Conjunction<Pattern> asConjunction() {
+        List<Pattern> patterns = new ArrayList<>(residues);
+        patterns.addAll(core.patterns());
+        return new Conjunction<>(patterns);
+    }
+
+    @Override
+    public String toString() {
+        List<Pattern> patterns = new ArrayList<>(core.patterns());
+        patterns.addAll(residues);
+        return patterns.stream().map(Pattern::toString).collect(SEMICOLON_NEW_LINE.joiner()) + SEMICOLON;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FactoredConjunction that = (FactoredConjunction) o;
+        return core.equals(that.core) && residues.equals(that.residues);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
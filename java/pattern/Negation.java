@@ -24,11 +24,14 @@ package com.vaticle.typeql.lang.pattern;
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.ErrorMessage;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.util.ConstraintInterner;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
 
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.CURLY_CLOSE;
@@ -46,12 +49,12 @@ import static com.vaticle.typeql.lang.common.util.Strings.indent;
 public class Negation<T extends Pattern> implements Conjunctable {
 
     private final T pattern;
-    private Negation<Disjunction<Conjunction<Conjunctable>>> normalised;
+    private volatile Negation<Disjunction<Conjunction<Conjunctable>>> normalised;
 
     public Negation(T pattern) {
         if (pattern == null) throw new NullPointerException("Null patterns");
         else if (pattern.isNegation()) throw TypeQLException.of(ErrorMessage.REDUNDANT_NESTED_NEGATION);
-        this.pattern = pattern;
+        this.pattern = ConstraintInterner.intern(pattern);
     }
 
     public T pattern() {
@@ -72,6 +75,13 @@ public class Negation<T extends Pattern> implements Conjunctable {
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public Negation<T> substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        T substituted = (T) pattern.substitute(values);
+        return substituted != pattern ? new Negation<>(substituted) : this;
+    }
+
     @Override
     public Negation<Disjunction<Conjunction<Conjunctable>>> normalise() {
         if (normalised == null) {
@@ -131,7 +141,7 @@ public class Negation<T extends Pattern> implements Conjunctable {
 
     @Override
     public int hashCode() {
-        return pattern.hashCode();
+        return Objects.hash(Negation.class, pattern);
     }
 }
 
@@ -22,11 +22,13 @@
 package com.vaticle.typeql.lang.pattern;
 
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static com.vaticle.typedb.common.util.Objects.className;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_CASTING;
@@ -35,10 +37,25 @@ public interface Pattern {
 
     Pattern normalise();
 
+    /**
+     * The number of conjunctions in the disjunctive normal form of this pattern, computed without normalising it.
+     * Variables and negations normalise into a single conjunctable, so count as one. Saturates at
+     * {@link Long#MAX_VALUE}.
+     */
+    default long normalisedSize() { return 1; }
+
     List<? extends Pattern> patterns();
 
     void validateIsBoundedBy(Set<UnboundVariable> bounds);
 
+    /**
+     * Returns this pattern with each of its value constraints replaced by the result of {@code values}, including
+     * those of the attributes its statements have. Patterns in which nothing is replaced are returned as they are,
+     * and are shared with the result rather than copied. Replacing values leaves the variables of the pattern
+     * unchanged, so the result is not validated again.
+     */
+    Pattern substitute(UnaryOperator<ThingConstraint.Value<?>> values);
+
     default boolean isVariable() { return false; }
 
     default boolean isConjunction() { return false; }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.pattern;
+
+import com.vaticle.typeql.lang.common.TypeQLToken;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
+import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.GT;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.GTE;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.LT;
+import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.LTE;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Simplifies a pattern in disjunctive normal form, such as the result of {@link Conjunction#normalise()}, and
+ * records how many of its conjunctions were removed. Conjunctions are removed when they:
+ * <ul>
+ *     <li>constrain a named variable with value predicates that no value satisfies, such as {@code $x 5; $x 6;};</li>
+ *     <li>duplicate an earlier conjunction, up to the order of statements and of their constraints;</li>
+ *     <li>are subsumed by another conjunction whose statements are a strict subset of theirs and which names the
+ *     same variables, so that every answer to them is also an answer to the other.</li>
+ * </ul>
+ * Only comparisons of a variable with literal values are checked for contradictions, so the check is conservative:
+ * a conjunction that is not removed may still have no answers. If every conjunction is contradictory, the
+ * simplified disjunction is empty.
+ */
+public class Simplification {
+
+    private final Disjunction<Conjunction<Conjunctable>> disjunction;
+    private final int contradictions;
+    private final int duplicates;
+    private final int subsumed;
+
+    private Simplification(Disjunction<Conjunction<Conjunctable>> disjunction, int contradictions, int duplicates,
+                           int subsumed) {
+        this.disjunction = disjunction;
+        this.contradictions = contradictions;
+        this.duplicates = duplicates;
+        this.subsumed = subsumed;
+    }
+
+    public static Simplification of(Disjunction<Conjunction<Conjunctable>> normalised) {
+        List<Conjunction<Conjunctable>> satisfiable = normalised.patterns().stream()
+                .filter(Simplification::isSatisfiable).collect(toList());
+        int contradictions = normalised.patterns().size() - satisfiable.size();
+
+        Map<Set<Object>, Conjunction<Conjunctable>> distinct = new LinkedHashMap<>();
+        satisfiable.forEach(conjunction -> distinct.putIfAbsent(statements(conjunction), conjunction));
+        int duplicates = satisfiable.size() - distinct.size();
+
+        Map<Set<Object>, Set<UnboundVariable>> named = new HashMap<>();
+        distinct.forEach((statements, conjunction) -> named.put(
+                statements, conjunction.namedVariablesUnbound().collect(toSet())));
+        List<Conjunction<Conjunctable>> simplified = new ArrayList<>();
+        distinct.forEach((statements, conjunction) -> {
+            boolean isSubsumed = distinct.keySet().stream().anyMatch(other -> other.size() < statements.size() &&
+                    statements.containsAll(other) && named.get(other).equals(named.get(statements)));
+            if (!isSubsumed) simplified.add(conjunction);
+        });
+        int subsumed = distinct.size() - simplified.size();
+
+        return new Simplification(new Disjunction<>(simplified), contradictions, duplicates, subsumed);
+    }
+
+    public Disjunction<Conjunction<Conjunctable>> disjunction() {
+        return disjunction;
+    }
+
+    public int contradictions() {
+        return contradictions;
+    }
+
+    public int duplicates() {
+        return duplicates;
+    }
+
+    public int subsumed() {
+        return subsumed;
+    }
+
+    public int removed() {
+        return contradictions + duplicates + subsumed;
+    }
+
+    @Override
+    public String toString() {
+        return "Removed " + removed() + " of " + (disjunction.patterns().size() + removed()) + " conjunctions: " +
+                contradictions + " contradictory, " + duplicates + " duplicate, " + subsumed + " subsumed.";
+    }
+
+    private static Set<Object> statements(Conjunction<Conjunctable> conjunction) {
+        Set<Object> statements = new HashSet<>();
+        for (Conjunctable conjunctable : conjunction.patterns()) {
+            if (conjunctable.isVariable()) {
+                BoundVariable variable = conjunctable.asVariable();
+                statements.add(Arrays.asList(variable.reference(), new HashSet<>(variable.constraints())));
+            } else {
+                statements.add(conjunctable);
+            }
+        }
+        return statements;
+    }
+
+    private static boolean isSatisfiable(Conjunction<Conjunctable> conjunction) {
+        Map<String, List<ThingConstraint.Value<?>>> values = new HashMap<>();
+        conjunction.variables().filter(v -> v.isNamed() && v.isThing() && v.asThing().value().isPresent())
+                .forEach(v -> values.computeIfAbsent(v.name(), n -> new ArrayList<>()).add(v.asThing().value().get()));
+        return values.values().stream().allMatch(Simplification::isSatisfiable);
+    }
+
+    private static boolean isSatisfiable(List<ThingConstraint.Value<?>> values) {
+        return isSatisfiable(values, v -> v.isLong() || v.isDouble(), Simplification::decimal, true) &&
+                isSatisfiable(values, ThingConstraint.Value::isDateTime, v -> v.asDateTime().value(), true) &&
+                isSatisfiable(values, ThingConstraint.Value::isString, v -> v.asString().value(), false) &&
+                isSatisfiable(values, ThingConstraint.Value::isBoolean, v -> v.asBoolean().value(), false);
+    }
+
+    private static BigDecimal decimal(ThingConstraint.Value<?> value) {
+        if (value.isLong()) return BigDecimal.valueOf(value.asLong().value());
+        double number = value.asDouble().value();
+        return Double.isFinite(number) ? new BigDecimal(number) : null;
+    }
+
+    /**
+     * Checks that some value satisfies all of the equality predicates of one kind. Inequalities are only
+     * compared for kinds with a natural {@code ordered} comparison, and otherwise are assumed to be satisfiable.
+     */
+    private static <C extends Comparable<? super C>> boolean isSatisfiable(
+            List<ThingConstraint.Value<?>> values, Predicate<ThingConstraint.Value<?>> kind,
+            Function<ThingConstraint.Value<?>, C> key, boolean ordered) {
+        C equal = null, lower = null, upper = null;
+        boolean lowerInclusive = true, upperInclusive = true;
+        Set<C> excluded = new TreeSet<>();
+        for (ThingConstraint.Value<?> value : values) {
+            if (!kind.test(value) || !value.predicate().isEquality()) continue;
+            C c = key.apply(value);
+            if (c == null) continue;
+            TypeQLToken.Predicate.Equality predicate = value.predicate().asEquality();
+            switch (predicate) {
+                case EQ:
+                    if (equal != null && equal.compareTo(c) != 0) return false;
+                    equal = c;
+                    break;
+                case NEQ:
+                    excluded.add(c);
+                    break;
+                case GT:
+                case GTE:
+                    if (!ordered) break;
+                    if (lower == null || c.compareTo(lower) > 0 || (c.compareTo(lower) == 0 && predicate == GT)) {
+                        lower = c;
+                        lowerInclusive = predicate == GTE;
+                    }
+                    break;
+                case LT:
+                case LTE:
+                    if (!ordered) break;
+                    if (upper == null || c.compareTo(upper) < 0 || (c.compareTo(upper) == 0 && predicate == LT)) {
+                        upper = c;
+                        upperInclusive = predicate == LTE;
+                    }
+                    break;
+            }
+        }
+        if (equal != null) {
+            if (excluded.contains(equal)) return false;
+            if (lower != null && (equal.compareTo(lower) < 0 || (equal.compareTo(lower) == 0 && !lowerInclusive))) {
+                return false;
+            }
+            return upper == null || equal.compareTo(upper) < 0 || (equal.compareTo(upper) == 0 && upperInclusive);
+        }
+        if (lower != null && upper != null) {
+            int comparison = lower.compareTo(upper);
+            if (comparison > 0) return false;
+            if (comparison == 0) return lowerInclusive && upperInclusive && !excluded.contains(lower);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.pattern;
+
+import com.vaticle.typeql.lang.pattern.constraint.Constraint;
+import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
+import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * An index of the variables of a {@link Conjunction}, computed once and then shared by validation and by planners,
+ * so that each lookup takes constant time rather than a walk of the whole pattern.
+ *
+ * The variables of a conjunction are those of its statements, the variables nested in their constraints, and those
+ * of nested conjunctions, in pattern order. Variables that only appear inside nested disjunctions and negations
+ * belong to the scope of those patterns, and are indexed separately as nested variables.
+ */
+public class VariableIndex {
+
+    private final List<BoundVariable> variables;
+    private final List<UnboundVariable> named;
+    private final Set<UnboundVariable> namedSet;
+    private final Set<UnboundVariable> references;
+    private final List<BoundVariable> anonymous;
+    private final List<BoundVariable> labelled;
+    private final Map<UnboundVariable, List<BoundVariable>> statements;
+    private final Set<UnboundVariable> nested;
+
+    private VariableIndex(Conjunction<?> conjunction) {
+        this.variables = Collections.unmodifiableList(conjunction.collectVariables().collect(toList()));
+        Set<UnboundVariable> named = new LinkedHashSet<>();
+        Set<UnboundVariable> references = new HashSet<>();
+        List<BoundVariable> anonymous = new ArrayList<>();
+        List<BoundVariable> labelled = new ArrayList<>();
+        Map<UnboundVariable, List<BoundVariable>> statements = new HashMap<>();
+        for (BoundVariable variable : variables) {
+            references.add(variable.toUnbound());
+            if (variable.isNamed()) {
+                UnboundVariable unbound = UnboundVariable.named(variable.name());
+                named.add(unbound);
+                if (!variable.constraints().isEmpty()) {
+                    statements.computeIfAbsent(unbound, v -> new ArrayList<>()).add(variable);
+                }
+            } else if (variable.isLabelled()) {
+                labelled.add(variable);
+            } else {
+                anonymous.add(variable);
+            }
+        }
+        Set<UnboundVariable> nested = new HashSet<>();
+        conjunction.patterns().forEach(pattern -> addNested(pattern, nested));
+
+        this.named = Collections.unmodifiableList(new ArrayList<>(named));
+        this.namedSet = Collections.unmodifiableSet(named);
+        this.references = Collections.unmodifiableSet(references);
+        this.anonymous = Collections.unmodifiableList(anonymous);
+        this.labelled = Collections.unmodifiableList(labelled);
+        this.statements = statements;
+        this.nested = Collections.unmodifiableSet(nested);
+    }
+
+    static VariableIndex of(Conjunction<?> conjunction) {
+        return new VariableIndex(conjunction);
+    }
+
+    private static void addNested(Pattern pattern, Set<UnboundVariable> nested) {
+        if (pattern.isVariable()) return;
+        else if (pattern.isConjunction()) {
+            pattern.asConjunction().patterns().forEach(p -> addNested(p, nested));
+        } else {
+            pattern.patterns().forEach(p -> addScoped(p, nested));
+        }
+    }
+
+    private static void addScoped(Pattern pattern, Set<UnboundVariable> nested) {
+        if (pattern.isVariable()) {
+            pattern.asVariable().variables().filter(BoundVariable::isNamed)
+                    .forEach(v -> nested.add(UnboundVariable.named(v.name())));
+            if (pattern.asVariable().isNamed()) nested.add(UnboundVariable.named(pattern.asVariable().name()));
+        } else if (pattern.isConjunction()) {
+            VariableIndex index = pattern.asConjunction().variableIndex();
+            nested.addAll(index.named());
+            nested.addAll(index.nested());
+        } else {
+            pattern.patterns().forEach(p -> addScoped(p, nested));
+        }
+    }
+
+    /**
+     * @return every variable of the conjunction, as returned by {@link Conjunction#variables()}
+     */
+    public List<BoundVariable> variables() {
+        return variables;
+    }
+
+    /**
+     * @return the distinct named variables of the conjunction, in order of first appearance
+     */
+    public List<UnboundVariable> named() {
+        return named;
+    }
+
+    public boolean isNamed(UnboundVariable variable) {
+        return namedSet.contains(variable);
+    }
+
+    /**
+     * @return whether any variable of the conjunction, named or not, is one of {@code variables}
+     */
+    public boolean isReferencedBy(Set<UnboundVariable> variables) {
+        if (references.size() <= variables.size()) return references.stream().anyMatch(variables::contains);
+        else return variables.stream().anyMatch(references::contains);
+    }
+
+    /**
+     * @return the unbound form of every variable of the conjunction
+     */
+    public Set<UnboundVariable> references() {
+        return references;
+    }
+
+    public List<BoundVariable> anonymous() {
+        return anonymous;
+    }
+
+    public List<BoundVariable> labelled() {
+        return labelled;
+    }
+
+    /**
+     * @return the statements of the conjunction about a named variable, in pattern order, leaving out bare references
+     * to the variable that place no constraints on it, such as a role player
+     */
+    public List<BoundVariable> statements(UnboundVariable variable) {
+        List<BoundVariable> found = statements.get(variable);
+        return found == null ? Collections.emptyList() : Collections.unmodifiableList(found);
+    }
+
+    /**
+     * @return the constraints that the statements of the conjunction place on a named variable
+     */
+    public List<Constraint<?>> constraints(UnboundVariable variable) {
+        List<Constraint<?>> constraints = new ArrayList<>();
+        statements(variable).forEach(statement -> constraints.addAll(statement.constraints()));
+        return constraints;
+    }
+
+    /**
+     * @return the named variables that appear inside the nested disjunctions and negations of the conjunction, at
+     * any depth
+     */
+    public Set<UnboundVariable> nested() {
+        return nested;
+    }
+
+    /**
+     * @return whether a named variable appears only inside nested disjunctions and negations, and so is local to
+     * their scope rather than bound by the conjunction
+     */
+    public boolean isLocalToNestedScope(UnboundVariable variable) {
+        return nested.contains(variable) && !namedSet.contains(variable);
+    }
+}
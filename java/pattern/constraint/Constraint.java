@@ -33,6 +33,13 @@ public abstract class Constraint<VARIABLE extends BoundVariable> {
 
     public abstract Set<VARIABLE> variables();
 
+    /**
+     * Makes a constraint that can be changed in place reject further changes, once the variable holding it is
+     * frozen. Other constraints are left as they are.
+     */
+    public void freeze() {
+    }
+
     public boolean isConcept() {
         return false;
     }
@@ -42,6 +42,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
@@ -59,6 +60,7 @@ import static com.vaticle.typeql.lang.common.TypeQLToken.Constraint.ISAX;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.Equality.EQ;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Predicate.SubString.LIKE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Type.RELATION;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.FROZEN_PATTERN_MODIFICATION;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_CASTING;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_CONSTRAINT_DATETIME_PRECISION;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_IID_STRING;
@@ -254,6 +256,7 @@ public abstract class ThingConstraint extends Constraint<BoundVariable> {
         private final Map<Pair<TypeVariable, ThingVariable<?>>, AtomicInteger> repetitions;
         private final List<RolePlayer> players;
         private String scope;
+        private boolean frozen;
 
         public Relation(RolePlayer player) {
             this(list(player));
@@ -281,11 +284,13 @@ public abstract class ThingConstraint extends Constraint<BoundVariable> {
         }
 
         public void setScope(String relationLabel) {
+            if (frozen) throw TypeQLException.of(FROZEN_PATTERN_MODIFICATION.message(this));
             this.scope = relationLabel;
             players.forEach(player -> player.setScope(scope));
         }
 
         public void addPlayers(RolePlayer player) {
+            if (frozen) throw TypeQLException.of(FROZEN_PATTERN_MODIFICATION.message(this));
             if (scope != null) player.setScope(scope);
             player.setRepetition(incrementRepetition(player));
             players.add(player);
@@ -295,6 +300,11 @@ public abstract class ThingConstraint extends Constraint<BoundVariable> {
             return players;
         }
 
+        @Override
+        public void freeze() {
+            frozen = true;
+        }
+
         @Override
         public Set<BoundVariable> variables() {
             Set<BoundVariable> variables = new HashSet<>();
@@ -428,7 +438,7 @@ public abstract class ThingConstraint extends Constraint<BoundVariable> {
         }
 
         public Has(UnboundVariable var) {
-            this(null, var.toThing());
+            this((TypeVariable) null, var.toThing());
         }
 
         private Has(@Nullable TypeVariable type, ThingVariable<?> attribute) {
@@ -439,10 +449,25 @@ public abstract class ThingConstraint extends Constraint<BoundVariable> {
             this.hash = Objects.hash(Has.class, this.type, this.attribute);
         }
 
+        private Has(Has has, ThingVariable<?> attribute) {
+            this.type = has.type;
+            this.attribute = attribute;
+            this.hash = Objects.hash(Has.class, this.type, this.attribute);
+        }
+
         public ThingVariable<?> attribute() { return attribute; }
 
         public Optional<TypeVariable> type() { return Optional.ofNullable(type); }
 
+        /**
+         * Copies this constraint when the value of its attribute is replaced, keeping the {@code isa} constraint
+         * the attribute already has rather than adding it again.
+         */
+        public ThingConstraint.Has substitute(UnaryOperator<Value<?>> values) {
+            ThingVariable<?> substituted = attribute.substitute(values);
+            return substituted != attribute ? new Has(this, substituted) : this;
+        }
+
         @Override
         public Set<BoundVariable> variables() {
             return set(attribute);
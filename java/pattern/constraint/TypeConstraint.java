@@ -26,6 +26,7 @@ import com.vaticle.typedb.common.collection.Pair;
 import com.vaticle.typeql.lang.common.TypeQLArg;
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.common.util.Interner;
 import com.vaticle.typeql.lang.pattern.variable.TypeVariable;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
 
@@ -51,6 +52,7 @@ import static com.vaticle.typeql.lang.common.TypeQLToken.Constraint.SUBX;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Constraint.TYPE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Constraint.VALUE_TYPE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Type.RELATION;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.FROZEN_PATTERN_MODIFICATION;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_ATTRIBUTE_TYPE_REGEX;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_CASTING;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.MISSING_PATTERNS;
@@ -151,8 +153,8 @@ public abstract class TypeConstraint extends Constraint<TypeVariable> {
 
         public Label(@Nullable String scope, String label) {
             if (label == null) throw new NullPointerException("Null label");
-            this.scope = scope;
-            this.label = label;
+            this.scope = Interner.intern(scope);
+            this.label = Interner.intern(label);
             this.hash = Objects.hash(Label.class, this.scope, this.label);
         }
 
@@ -604,6 +606,7 @@ public abstract class TypeConstraint extends Constraint<TypeVariable> {
 
         private TypeVariable roleType;
         private TypeVariable overriddenRoleType;
+        private boolean frozen;
 
         public Relates(String roleType) {
             this(scopedType(roleType), null);
@@ -645,6 +648,7 @@ public abstract class TypeConstraint extends Constraint<TypeVariable> {
         }
 
         public void setScope(String relationLabel) {
+            if (frozen) throw TypeQLException.of(FROZEN_PATTERN_MODIFICATION.message(this));
             if (roleType.label().isPresent()) {
                 this.roleType = hidden().type(relationLabel, roleType.label().get().label());
             }
@@ -666,6 +670,11 @@ public abstract class TypeConstraint extends Constraint<TypeVariable> {
             return overriddenRoleType == null ? set(roleType) : set(roleType, overriddenRoleType);
         }
 
+        @Override
+        public void freeze() {
+            frozen = true;
+        }
+
         @Override
         public boolean isRelates() {
             return true;
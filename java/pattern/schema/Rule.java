@@ -27,6 +27,7 @@ import com.vaticle.typeql.lang.pattern.Definable;
 import com.vaticle.typeql.lang.pattern.Disjunction;
 import com.vaticle.typeql.lang.pattern.Negation;
 import com.vaticle.typeql.lang.pattern.Pattern;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.Reference;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 import com.vaticle.typeql.lang.pattern.variable.Variable;
@@ -34,6 +35,7 @@ import com.vaticle.typeql.lang.pattern.variable.Variable;
 import javax.annotation.Nullable;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,12 +59,14 @@ import static com.vaticle.typeql.lang.common.util.Strings.indent;
 
 public class Rule implements Definable {
     private final String label;
-    private Conjunction<? extends Pattern> when;
-    private ThingVariable<?> then;
-    private int hash = 0;
+    private final Conjunction<? extends Pattern> when;
+    private final ThingVariable<?> then;
+    private volatile int hash = 0;
 
     public Rule(String label) {
         this.label = label;
+        this.when = null;
+        this.then = null;
     }
 
     public Rule(String label, Conjunction<? extends Pattern> when, ThingVariable<?> variable) {
@@ -72,6 +76,12 @@ public class Rule implements Definable {
         this.then = variable;
     }
 
+    private Rule(Rule rule, Conjunction<? extends Pattern> when, ThingVariable<?> then) {
+        this.label = rule.label;
+        this.when = when;
+        this.then = then;
+    }
+
     @Override
     public boolean isRule() {
         return true;
@@ -98,6 +108,18 @@ public class Rule implements Definable {
         return new IncompleteRule(label, when);
     }
 
+    /**
+     * Returns this rule with the value constraints of its {@code when} and {@code then} replaced, like
+     * {@link Pattern#substitute(UnaryOperator)}, without validating it again.
+     */
+    public Rule substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        if (when == null) return this;
+        Conjunction<? extends Pattern> substitutedWhen = when.substitute(values);
+        ThingVariable<?> substitutedThen = then.substitute(values);
+        if (substitutedWhen == when && substitutedThen == then) return this;
+        else return new Rule(this, substitutedWhen, substitutedThen);
+    }
+
     public static void validate(String label, Conjunction<? extends Pattern> when, ThingVariable<?> then) {
         validateWhen(label, when);
         validateThen(label, when, then);
@@ -198,9 +220,8 @@ public class Rule implements Definable {
 
     @Override
     public int hashCode() {
-        if (hash == 0) {
-            this.hash = Objects.hash(label, when, then);
-        }
+        int hash = this.hash;
+        if (hash == 0) this.hash = hash = Objects.hash(label, when, then);
         return hash;
     }
 
@@ -23,18 +23,24 @@
 package com.vaticle.typeql.lang.pattern.test;
 
 import com.vaticle.typeql.lang.TypeQL;
+import com.vaticle.typeql.lang.common.exception.TypeQLException;
 import com.vaticle.typeql.lang.pattern.Conjunctable;
 import com.vaticle.typeql.lang.pattern.Conjunction;
 import com.vaticle.typeql.lang.pattern.Disjunction;
+import com.vaticle.typeql.lang.pattern.FactoredConjunction;
 import com.vaticle.typeql.lang.pattern.Pattern;
+import com.vaticle.typeql.lang.pattern.Simplification;
 import com.vaticle.typeql.lang.query.TypeQLMatch;
 import com.vaticle.typeql.lang.query.TypeQLQuery;
 import org.junit.Test;
 
 import java.util.List;
 
+import static com.vaticle.typedb.common.collection.Collections.list;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class NormalisationTest {
 
@@ -94,4 +100,88 @@ public class NormalisationTest {
         Disjunction<? extends Pattern> inner = expectedQuery.asMatch().conjunction().patterns().get(1).asNegation().pattern().asDisjunction();
         assertEquals(expected, expectedQuery.toString());
     }
+
+    @Test
+    public void lazyNormalisationMatchesNormalisation() {
+        String query = "match\n" +
+                "$x isa person;\n" +
+                "{ $x has name \"a\"; } or { $x has name \"b\"; { $x has age 1; } or { $x has age 2; }; };\n" +
+                "{ $x has height 1; } or { $x has height 2; };\n" +
+                "not { $x has name \"c\"; };";
+        Conjunction<? extends Pattern> conjunction = TypeQL.parseQuery(query).asMatch().conjunction();
+        List<Conjunction<Conjunctable>> lazy = conjunction.normaliseLazily().collect(toList());
+
+        assertEquals(6, conjunction.normalisedSize());
+        assertEquals(conjunction.normalise().patterns(), lazy);
+    }
+
+    @Test
+    public void normalisationOverLimitThrows() {
+        StringBuilder query = new StringBuilder("match $x isa person;");
+        for (int i = 0; i < 40; i++) query.append(" { $x has name \"n").append(i).append("\"; } or { $x has age ").append(i).append("; };");
+        Conjunction<? extends Pattern> conjunction = TypeQL.parseQuery(query.toString()).asMatch().conjunction();
+
+        assertEquals(1L << 40, conjunction.normalisedSize());
+        assertEquals(3, conjunction.normaliseLazily().limit(3).count());
+        try {
+            conjunction.normalise(10_000);
+            fail();
+        } catch (TypeQLException e) {
+            assertTrue(e.getMessage().contains("more than the limit of 10000"));
+        }
+    }
+
+    @Test
+    public void factorisationNormalisesDisjunctionsSeparately() {
+        StringBuilder query = new StringBuilder("match $x isa person;");
+        for (int i = 0; i < 6; i++) query.append(" { $x has name \"n").append(i).append("\"; } or { $x has age ").append(i).append("; };");
+        Conjunction<? extends Pattern> conjunction = TypeQL.parseQuery(query.toString()).asMatch().conjunction();
+        FactoredConjunction factored = conjunction.factorise();
+
+        assertEquals(TypeQL.parsePattern("{ $x isa person; }").normalise().patterns().get(0), factored.core());
+        assertEquals(6, factored.residues().size());
+        assertEquals(64, factored.normalisedSize());
+        assertEquals(conjunction.normalise(), factored.normalise());
+        assertEquals(conjunction.normalise(), FactoredConjunction.of(conjunction.normalise()).normalise());
+    }
+
+    @Test
+    public void factorisationHoistsSharedConjunctablesIntoCore() {
+        String query = "match\n" +
+                "$x isa person;\n" +
+                "{ $x has name \"a\"; $y isa company; } or { $x has age 1; $y isa company; };\n" +
+                "{ $x has name \"b\"; } or { $x has name \"b\"; $x has age 2; };";
+        Conjunction<? extends Pattern> conjunction = TypeQL.parseQuery(query).asMatch().conjunction();
+        FactoredConjunction factored = conjunction.factorise();
+
+        Conjunction<? extends Pattern> core = TypeQL.parsePattern(
+                "{ $x isa person; $y isa company; $x has name \"b\"; }").asConjunction();
+        assertEquals(core.normalise().patterns().get(0).patterns().size(), factored.core().patterns().size());
+        assertTrue(factored.core().patterns().containsAll(core.normalise().patterns().get(0).patterns()));
+        assertEquals(1, factored.residues().size());
+        assertEquals(2, factored.normalisedSize());
+    }
+
+    @Test
+    public void simplificationRemovesContradictoryDuplicateAndSubsumedConjunctions() {
+        String query = "match\n" +
+                "$p isa person, has age $x;\n" +
+                "{ $x 5; $x 6; } or " +
+                "{ $x >= 5; $x < 5; } or " +
+                "{ $p has name \"a\"; $p has age 1; } or " +
+                "{ $p has age 1; $p has name \"a\"; } or " +
+                "{ $p has name \"a\"; } or " +
+                "{ $p has name \"a\"; $p has friend $f; } or " +
+                "{ $x > 5; $x < 5.5; };";
+        Conjunction<? extends Pattern> conjunction = TypeQL.parseQuery(query).asMatch().conjunction();
+        Simplification simplification = Simplification.of(conjunction.normalise());
+
+        assertEquals(2, simplification.contradictions());
+        assertEquals(1, simplification.duplicates());
+        assertEquals(1, simplification.subsumed());
+        assertEquals(4, simplification.removed());
+        List<Conjunction<Conjunctable>> normalised = conjunction.normalise().patterns();
+        assertEquals(list(normalised.get(4), normalised.get(5), normalised.get(6)),
+                     simplification.disjunction().patterns());
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2022 Vaticle
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.vaticle.typeql.lang.pattern.util;
+
+import com.vaticle.typeql.lang.pattern.Pattern;
+import com.vaticle.typeql.lang.pattern.constraint.Constraint;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded hash-consing table of constraints and patterns, used to share one instance between structurally
+ * identical parts of queries, such as the {@code type person} label and {@code "alice"} value repeated by every
+ * query in a large batch, a whole {@code $c isa company, has name "vaticle"} statement, or the whole pattern of a
+ * match query that is repeated with the same values.
+ *
+ * Constraints are interned when they hold no variables, such as labels, values and IIDs, as nothing can change
+ * them once constructed. Constraints that hold variables, such as {@code isa} and {@code has}, can be changed
+ * through the builder methods of those variables, so they are only shared as part of their statement. A statement
+ * is interned when it is placed in a conjunction, disjunction or negation, which first freezes it and the
+ * variables it holds, after which any builder method called on them throws. Those patterns are interned in turn
+ * when they are nested in another pattern or placed in a match query, as nothing can change them once their
+ * statements are frozen. Statements outside patterns, such as those of insert queries and rule conclusions, are
+ * not interned. Like {@link com.vaticle.typeql.lang.common.util.Interner}, the tables are direct-mapped, so
+ * memory use is fixed, and hash-consing is disabled until {@link #enable(int)} is called.
+ */
+public class ConstraintInterner {
+
+    private static volatile ConstraintInterner interner = null;
+
+    // Races between threads writing to the same slot are benign, as interned constraints are immutable
+    private final Constraint<?>[] table;
+    // Statements are frozen rather than immutable, so patterns are published through volatile reads and writes
+    private final AtomicReferenceArray<Pattern> patterns;
+    private final int mask;
+
+    private ConstraintInterner(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.table = new Constraint<?>[size];
+        this.patterns = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Enables hash-consing with new, empty tables.
+     *
+     * @param capacity the number of constraints, and of patterns, the tables hold, rounded up to a power of two
+     */
+    public static void enable(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Interner capacity must be positive");
+        interner = new ConstraintInterner(capacity);
+    }
+
+    public static void disable() {
+        interner = null;
+    }
+
+    public static boolean isEnabled() {
+        return interner != null;
+    }
+
+    /**
+     * @return a constraint equal to {@code constraint}, which is shared with other callers if hash-consing is
+     * enabled and the constraint holds no variables
+     */
+    public static <C extends Constraint<?>> C intern(C constraint) {
+        ConstraintInterner current = interner;
+        if (current == null || constraint == null || !constraint.variables().isEmpty()) return constraint;
+        else return current.get(constraint);
+    }
+
+    /**
+     * @return a pattern equal to {@code pattern}, which is shared with other callers if hash-consing is enabled,
+     * after freezing it if it is a statement
+     */
+    @SuppressWarnings("unchecked")
+    public static <P extends Pattern> P intern(P pattern) {
+        ConstraintInterner current = interner;
+        if (current == null) return pattern;
+        else if (pattern.isVariable()) return (P) current.get(pattern.asVariable().freeze());
+        else return (P) current.get(pattern);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <C extends Constraint<?>> C get(C constraint) {
+        int slot = slot(constraint.hashCode());
+        Constraint<?> existing = table[slot];
+        if (existing != null && existing.getClass() == constraint.getClass() && existing.equals(constraint)) {
+            return (C) existing;
+        }
+        table[slot] = constraint;
+        return constraint;
+    }
+
+    private Pattern get(Pattern pattern) {
+        int slot = slot(pattern.hashCode());
+        Pattern existing = patterns.get(slot);
+        if (existing != null && existing.getClass() == pattern.getClass() && existing.equals(pattern)) {
+            return existing;
+        }
+        patterns.set(slot, pattern);
+        return pattern;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
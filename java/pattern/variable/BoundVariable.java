@@ -24,22 +24,51 @@ package com.vaticle.typeql.lang.pattern.variable;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
 import com.vaticle.typeql.lang.pattern.Conjunctable;
 import com.vaticle.typeql.lang.pattern.Pattern;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typedb.common.util.Objects.className;
+import static com.vaticle.typeql.lang.common.exception.ErrorMessage.FROZEN_PATTERN_MODIFICATION;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.INVALID_CASTING;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.MATCH_HAS_UNBOUNDED_NESTED_PATTERN;
 
 public abstract class BoundVariable extends Variable implements Conjunctable {
 
+    private boolean frozen;
+
     BoundVariable(Reference reference) {
         super(reference);
     }
 
+    /**
+     * Makes this statement, and the variables held by its constraints, reject any further change through their
+     * builder methods, so that one instance can be shared between queries. Conjunctions, disjunctions and negations
+     * freeze and share their statements while hash-consing is enabled.
+     */
+    public BoundVariable freeze() {
+        if (!frozen) {
+            frozen = true;
+            constraints().forEach(constraint -> {
+                constraint.freeze();
+                constraint.variables().forEach(BoundVariable::freeze);
+            });
+        }
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    void validateIsNotFrozen() {
+        if (frozen) throw TypeQLException.of(FROZEN_PATTERN_MODIFICATION.message(reference));
+    }
+
     @Override
     public void validateIsBoundedBy(Set<UnboundVariable> bounds) {
         if (Stream.concat(Stream.of(this), variables()).noneMatch(v -> bounds.contains(v.toUnbound()))) {
@@ -76,6 +105,9 @@ public abstract class BoundVariable extends Variable implements Conjunctable {
     @Override
     public BoundVariable normalise() { return this; }
 
+    @Override
+    public BoundVariable substitute(UnaryOperator<ThingConstraint.Value<?>> values) { return this; }
+
     @Override
     public boolean isVariable() { return true; }
 
@@ -23,6 +23,7 @@ package com.vaticle.typeql.lang.pattern.variable;
 
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.common.util.Interner;
 
 import java.util.Objects;
 import java.util.regex.Pattern;
@@ -135,7 +136,7 @@ public abstract class Reference {
             if (!REGEX.matcher(name).matches()) {
                 throw TypeQLException.of(INVALID_VARIABLE_NAME.message(name, REGEX.toString()));
             }
-            this.name = name;
+            this.name = Interner.intern(name);
             this.hash = Objects.hash(this.type, this.isVisible, this.name);
         }
 
@@ -26,10 +26,12 @@ import com.vaticle.typeql.lang.pattern.constraint.ConceptConstraint;
 import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.builder.ThingVariableBuilder;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.COMMA;
@@ -37,6 +39,7 @@ import static com.vaticle.typeql.lang.common.TypeQLToken.Char.COMMA_NEW_LINE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SPACE;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.ILLEGAL_CONSTRAINT_REPETITION;
 import static com.vaticle.typeql.lang.common.util.Strings.indent;
+import static com.vaticle.typeql.lang.pattern.util.ConstraintInterner.intern;
 
 public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVariable {
 
@@ -56,6 +59,8 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
 
     abstract T getThis();
 
+    abstract T unconstrained();
+
     @Override
     public List<ThingConstraint> constraints() {
         return constraints;
@@ -96,6 +101,7 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
     }
 
     public T constrain(ThingConstraint.Isa constraint) {
+        validateIsNotFrozen();
         if (isaConstraint != null) {
             throw TypeQLException.of(ILLEGAL_CONSTRAINT_REPETITION.message(reference, ThingConstraint.Isa.class, constraint));
         } else if (constraint.type().label().isPresent() && relation().isPresent()) {
@@ -107,11 +113,46 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
     }
 
     public T constrain(ThingConstraint.Has constraint) {
+        validateIsNotFrozen();
         hasConstraints.add(constraint);
         constraints.add(constraint);
         return getThis();
     }
 
+    /**
+     * Copies this statement when its value constraint, or that of an attribute it has, is replaced. The copy takes
+     * the constraints of this statement in the same order, without the checks of the builder methods.
+     */
+    @Override
+    public T substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        List<ThingConstraint> substituted = new ArrayList<>(constraints.size());
+        boolean replaced = false;
+        for (ThingConstraint constraint : constraints) {
+            ThingConstraint substitutedConstraint = constraint;
+            if (constraint == valueConstraint) {
+                ThingConstraint.Value<?> value = values.apply(valueConstraint);
+                if (value != valueConstraint) substitutedConstraint = intern(value);
+            } else if (constraint.isHas()) {
+                substitutedConstraint = constraint.asHas().substitute(values);
+            }
+            replaced |= substitutedConstraint != constraint;
+            substituted.add(substitutedConstraint);
+        }
+        if (!replaced) return getThis();
+
+        T copy = unconstrained();
+        copy.iidConstraint = iidConstraint;
+        copy.isaConstraint = isaConstraint;
+        copy.isConstraint = isConstraint;
+        copy.relationConstraint = relationConstraint;
+        for (ThingConstraint constraint : substituted) {
+            if (constraint.isValue()) copy.valueConstraint = constraint.asValue();
+            else if (constraint.isHas()) copy.hasConstraints.add(constraint.asHas());
+            copy.constraints.add(constraint);
+        }
+        return copy;
+    }
+
     String isaSyntax() {
         if (isa().isPresent()) return isa().get().toString();
         else return "";
@@ -143,8 +184,8 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
 
         Thing(Reference reference, ThingConstraint.IID iidConstraint) {
             super(reference);
-            this.iidConstraint = iidConstraint;
-            constraints.add(iidConstraint);
+            this.iidConstraint = intern(iidConstraint);
+            constraints.add(this.iidConstraint);
         }
 
         @Override
@@ -152,6 +193,11 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
             return this;
         }
 
+        @Override
+        ThingVariable.Thing unconstrained() {
+            return new Thing(reference);
+        }
+
         private String thingSyntax() {
             if (isa().isPresent()) return isaSyntax();
             else if (iid().isPresent()) return iid().get().toString();
@@ -184,13 +230,23 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
             constraints.add(relationConstraint);
         }
 
+        private Relation(Reference reference) {
+            super(reference);
+        }
+
         @Override
         ThingVariable.Relation getThis() {
             return this;
         }
 
+        @Override
+        ThingVariable.Relation unconstrained() {
+            return new Relation(reference);
+        }
+
         @Override
         public ThingVariable.Relation constrain(ThingConstraint.Relation.RolePlayer rolePlayer) {
+            validateIsNotFrozen();
             relationConstraint.addPlayers(rolePlayer);
             return this;
         }
@@ -218,8 +274,12 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
 
         Attribute(Reference reference, ThingConstraint.Value<?> valueConstraint) {
             super(reference);
-            this.valueConstraint = valueConstraint;
-            constraints.add(valueConstraint);
+            this.valueConstraint = intern(valueConstraint);
+            constraints.add(this.valueConstraint);
+        }
+
+        private Attribute(Reference reference) {
+            super(reference);
         }
 
         @Override
@@ -227,6 +287,11 @@ public abstract class ThingVariable<T extends ThingVariable<T>> extends BoundVar
             return this;
         }
 
+        @Override
+        ThingVariable.Attribute unconstrained() {
+            return new Attribute(reference);
+        }
+
         @Override
         public String toString(boolean pretty) {
             assert value().isPresent();
@@ -39,6 +39,7 @@ import static com.vaticle.typeql.lang.common.TypeQLToken.Char.COMMA_NEW_LINE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.SPACE;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.ILLEGAL_CONSTRAINT_REPETITION;
 import static com.vaticle.typeql.lang.common.util.Strings.indent;
+import static com.vaticle.typeql.lang.pattern.util.ConstraintInterner.intern;
 
 public class TypeVariable extends BoundVariable implements TypeVariableBuilder, Definable {
 
@@ -79,17 +80,19 @@ public class TypeVariable extends BoundVariable implements TypeVariableBuilder,
 
     @Override
     public TypeVariable constrain(TypeConstraint.Label constraint) {
+        validateIsNotFrozen();
         if (labelConstraint != null) {
             throw TypeQLException.of(ILLEGAL_CONSTRAINT_REPETITION.message(reference, TypeConstraint.Label.class, constraint));
         }
-        labelConstraint = constraint;
-        constraints.add(constraint);
+        labelConstraint = intern(constraint);
+        constraints.add(labelConstraint);
         relatesConstraints.forEach(rel -> rel.setScope(constraint.label()));
         return this;
     }
 
     @Override
     public TypeVariable constrain(TypeConstraint.Sub constraint) {
+        validateIsNotFrozen();
         if (subConstraint != null) {
             throw TypeQLException.of(ILLEGAL_CONSTRAINT_REPETITION.message(reference, TypeConstraint.Sub.class, constraint));
         }
@@ -100,37 +103,41 @@ public class TypeVariable extends BoundVariable implements TypeVariableBuilder,
 
     @Override
     public TypeVariable constrain(TypeConstraint.Abstract constraint) {
+        validateIsNotFrozen();
         if (abstractConstraint != null) {
             throw TypeQLException.of(ILLEGAL_CONSTRAINT_REPETITION.message(reference, TypeConstraint.Abstract.class, constraint));
         }
-        abstractConstraint = constraint;
-        constraints.add(constraint);
+        abstractConstraint = intern(constraint);
+        constraints.add(abstractConstraint);
         return this;
     }
 
     @Override
     public TypeVariable constrain(TypeConstraint.ValueType constraint) {
+        validateIsNotFrozen();
         if (valueTypeConstraint != null) {
             throw TypeQLException.of(ILLEGAL_CONSTRAINT_REPETITION.message(reference, TypeConstraint.ValueType.class, constraint));
         }
-        valueTypeConstraint = constraint;
-        constraints.add(constraint);
+        valueTypeConstraint = intern(constraint);
+        constraints.add(valueTypeConstraint);
         return this;
     }
 
     @Override
     public TypeVariable constrain(TypeConstraint.Regex constraint) {
+        validateIsNotFrozen();
         if (regexConstraint != null) {
             throw TypeQLException.of(ILLEGAL_CONSTRAINT_REPETITION.message(reference, TypeConstraint.Regex.class, constraint));
         }
-        regexConstraint = constraint;
-        constraints.add(constraint);
+        regexConstraint = intern(constraint);
+        constraints.add(regexConstraint);
         return this;
     }
 
 
     @Override
     public TypeVariable constrain(TypeConstraint.Owns constraint) {
+        validateIsNotFrozen();
         ownsConstraints.add(constraint);
         constraints.add(constraint);
         return this;
@@ -138,6 +145,7 @@ public class TypeVariable extends BoundVariable implements TypeVariableBuilder,
 
     @Override
     public TypeVariable constrain(TypeConstraint.Plays constraint) {
+        validateIsNotFrozen();
         playsConstraints.add(constraint);
         constraints.add(constraint);
         return this;
@@ -145,6 +153,7 @@ public class TypeVariable extends BoundVariable implements TypeVariableBuilder,
 
     @Override
     public TypeVariable constrain(TypeConstraint.Relates constraint) {
+        validateIsNotFrozen();
         if (label().isPresent()) {
             constraint.setScope(label().get().label());
         }
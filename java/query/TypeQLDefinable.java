@@ -26,6 +26,7 @@ import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.ErrorMessage;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
 import com.vaticle.typeql.lang.pattern.Definable;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.schema.Rule;
 import com.vaticle.typeql.lang.pattern.variable.TypeVariable;
 
@@ -33,6 +34,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 import static com.vaticle.typeql.lang.common.TypeQLToken.Command.DEFINE;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Command.UNDEFINE;
@@ -65,6 +67,22 @@ abstract class TypeQLDefinable extends TypeQLQuery {
         this.hash = Objects.hash(this.command, this.variables, this.rules);
     }
 
+    TypeQLDefinable(TypeQLDefinable query, UnaryOperator<ThingConstraint.Value<?>> values) {
+        this.command = query.command;
+        this.definables = new ArrayList<>(query.definables.size());
+        for (Definable definable : query.definables) {
+            if (definable.isRule()) {
+                Rule rule = definable.asRule().substitute(values);
+                definables.add(rule);
+                rules.add(rule);
+            } else {
+                definables.add(definable);
+                if (definable.isTypeVariable()) variables.add(definable.asTypeVariable());
+            }
+        }
+        this.hash = Objects.hash(this.command, this.variables, this.rules);
+    }
+
     @Override
     public TypeQLArg.QueryType type() {
         return TypeQLArg.QueryType.WRITE;
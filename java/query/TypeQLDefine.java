@@ -23,12 +23,23 @@ package com.vaticle.typeql.lang.query;
 
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.pattern.Definable;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 public class TypeQLDefine extends TypeQLDefinable {
 
     public TypeQLDefine(List<Definable> definables) {
         super(TypeQLToken.Command.DEFINE, definables);
     }
+
+    private TypeQLDefine(TypeQLDefine query, UnaryOperator<ThingConstraint.Value<?>> values) {
+        super(query, values);
+    }
+
+    @Override
+    public TypeQLDefine substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        return new TypeQLDefine(this, values);
+    }
 }
@@ -22,9 +22,11 @@
 package com.vaticle.typeql.lang.query;
 
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Command.DELETE;
@@ -37,6 +39,10 @@ public class TypeQLDelete extends TypeQLWritable.InsertOrDelete {
         super(DELETE, requireNonNull(match), validDeleteVars(match, variables));
     }
 
+    private TypeQLDelete(TypeQLDelete delete, UnaryOperator<ThingConstraint.Value<?>> values) {
+        super(DELETE, delete.match().substitute(values), substitute(delete.variables, values));
+    }
+
     static List<ThingVariable<?>> validDeleteVars(TypeQLMatch.Unfiltered match, List<ThingVariable<?>> variables) {
         variables.forEach(var -> {
             if (var.isNamed() && !match.namedVariablesUnbound().contains(var.toUnbound())) {
@@ -58,6 +64,11 @@ public class TypeQLDelete extends TypeQLWritable.InsertOrDelete {
 
     public List<ThingVariable<?>> variables() { return variables; }
 
+    @Override
+    public TypeQLDelete substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        return new TypeQLDelete(this, values);
+    }
+
     public TypeQLUpdate insert(ThingVariable<?>... things) {
         return insert(list(things));
     }
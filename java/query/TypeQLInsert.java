@@ -22,11 +22,13 @@
 package com.vaticle.typeql.lang.query;
 
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 import static com.vaticle.typeql.lang.common.TypeQLToken.Command.INSERT;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.NO_VARIABLE_IN_SCOPE_INSERT;
@@ -41,6 +43,11 @@ public class TypeQLInsert extends TypeQLWritable.InsertOrDelete {
         super(INSERT, match, validInsertVars(match, variables));
     }
 
+    private TypeQLInsert(TypeQLInsert insert, UnaryOperator<ThingConstraint.Value<?>> values) {
+        super(INSERT, insert.match == null ? null : insert.match.substitute(values),
+              substitute(insert.variables, values));
+    }
+
     static List<ThingVariable<?>> validInsertVars(@Nullable TypeQLMatch.Unfiltered match, List<ThingVariable<?>> variables) {
         if (match != null) {
             if (variables.stream().noneMatch(var -> var.isNamed() && match.namedVariablesUnbound().contains(var.toUnbound())
@@ -56,4 +63,9 @@ public class TypeQLInsert extends TypeQLWritable.InsertOrDelete {
     }
 
     public List<ThingVariable<?>> variables() { return variables; }
+
+    @Override
+    public TypeQLInsert substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        return new TypeQLInsert(this, values);
+    }
 }
@@ -27,6 +27,8 @@ import com.vaticle.typeql.lang.common.exception.ErrorMessage;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
 import com.vaticle.typeql.lang.pattern.Conjunction;
 import com.vaticle.typeql.lang.pattern.Pattern;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
+import com.vaticle.typeql.lang.pattern.util.ConstraintInterner;
 import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
@@ -40,6 +42,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.UnaryOperator;
 
 import static com.vaticle.typedb.common.collection.Collections.list;
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.COMMA_SPACE;
@@ -61,7 +64,6 @@ import static com.vaticle.typeql.lang.common.exception.ErrorMessage.MISSING_PATT
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.VARIABLE_NOT_NAMED;
 import static com.vaticle.typeql.lang.common.exception.ErrorMessage.VARIABLE_OUT_OF_SCOPE_MATCH;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toSet;
 import static java.util.stream.Stream.concat;
 import static java.util.stream.Stream.of;
 
@@ -72,9 +74,6 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
 
     private final int hash;
 
-    private List<BoundVariable> variables;
-    private List<UnboundVariable> variablesNamedUnbound;
-
     TypeQLMatch(Conjunction<? extends Pattern> conjunction) {
         this(conjunction, new ArrayList<>());
     }
@@ -85,7 +84,7 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
 
     public TypeQLMatch(Conjunction<? extends Pattern> conjunction, List<UnboundVariable> filter, Sortable.Sorting sorting, Long offset, Long limit) {
         if (filter == null) throw TypeQLException.of(ErrorMessage.MISSING_MATCH_FILTER.message());
-        this.conjunction = conjunction;
+        this.conjunction = ConstraintInterner.intern(conjunction);
         this.modifiers = new Modifiers(filter, sorting, offset, limit);
 
         hasBoundingConjunction();
@@ -98,6 +97,13 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
         this.hash = Objects.hash(this.conjunction, this.modifiers);
     }
 
+    TypeQLMatch(TypeQLMatch match, UnaryOperator<ThingConstraint.Value<?>> values) {
+        this.conjunction = ConstraintInterner.intern(match.conjunction.substitute(values));
+        this.modifiers = new Modifiers(match.modifiers.filter, match.modifiers.sorting, match.modifiers.offset,
+                                       match.modifiers.limit);
+        this.hash = Objects.hash(this.conjunction, this.modifiers);
+    }
+
 
     public class Modifiers {
 
@@ -169,14 +175,15 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
     }
 
     private void hasBoundingConjunction() {
-        if (!conjunction.namedVariablesUnbound().findAny().isPresent()) {
+        if (conjunction.variableIndex().named().isEmpty()) {
             throw TypeQLException.of(MATCH_HAS_NO_BOUNDING_NAMED_VARIABLE);
         }
     }
 
     private void nestedPatternsAreBounded() {
+        Set<UnboundVariable> bounds = new HashSet<>(conjunction.variableIndex().named());
         conjunction.patterns().stream().filter(pattern -> !pattern.isVariable()).forEach(pattern -> {
-            pattern.validateIsBoundedBy(conjunction.namedVariablesUnbound().collect(toSet()));
+            pattern.validateIsBoundedBy(bounds);
         });
     }
 
@@ -198,7 +205,7 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
     private void filtersAreInScope() {
         Set<UnboundVariable> duplicates = new HashSet<>();
         for (UnboundVariable var : modifiers.filter) {
-            if (!namedVariablesUnbound().contains(var))
+            if (!conjunction.variableIndex().isNamed(var))
                 throw TypeQLException.of(VARIABLE_OUT_OF_SCOPE_MATCH.message(var));
             if (!var.isNamed()) throw TypeQLException.of(VARIABLE_NOT_NAMED.message(var));
             if (duplicates.contains(var)) throw TypeQLException.of(ILLEGAL_FILTER_VARIABLE_REPEATING.message(var));
@@ -207,12 +214,18 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
     }
 
     private void sortVarsAreInScope() {
-        List<UnboundVariable> sortableVars = modifiers.filter.isEmpty() ? namedVariablesUnbound() : modifiers.filter;
-        if (modifiers.sorting != null && modifiers.sorting.variables().stream().anyMatch(v -> !sortableVars.contains(v))) {
+        if (modifiers.sorting == null) return;
+        Set<UnboundVariable> sortableVars = new HashSet<>(modifiers.filter.isEmpty() ? namedVariablesUnbound() : modifiers.filter);
+        if (modifiers.sorting.variables().stream().anyMatch(v -> !sortableVars.contains(v))) {
             throw TypeQLException.of(VARIABLE_OUT_OF_SCOPE_MATCH.message(modifiers.sorting.variables()));
         }
     }
 
+    @Override
+    public TypeQLMatch substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        return new TypeQLMatch(this, values);
+    }
+
     @Override
     public Aggregate aggregate(TypeQLToken.Aggregate.Method method, UnboundVariable var) {
         return new Aggregate(this, method, var);
@@ -236,15 +249,11 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
     }
 
     public List<BoundVariable> variables() {
-        if (variables == null) variables = conjunction.variables().collect(toList());
-        return variables;
+        return conjunction.variableIndex().variables();
     }
 
     public List<UnboundVariable> namedVariablesUnbound() {
-        if (variablesNamedUnbound == null) {
-            variablesNamedUnbound = conjunction.namedVariablesUnbound().collect(toList());
-        }
-        return variablesNamedUnbound;
+        return conjunction.variableIndex().named();
     }
 
     public Modifiers modifiers() {
@@ -284,6 +293,15 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
             super(validConjunction(patterns));
         }
 
+        private Unfiltered(Unfiltered unfiltered, UnaryOperator<ThingConstraint.Value<?>> values) {
+            super(unfiltered, values);
+        }
+
+        @Override
+        public TypeQLMatch.Unfiltered substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new TypeQLMatch.Unfiltered(this, values);
+        }
+
         static Conjunction<? extends Pattern> validConjunction(List<? extends Pattern> patterns) {
             if (patterns.size() == 0) throw TypeQLException.of(MISSING_PATTERNS.message());
             return new Conjunction<>(patterns);
@@ -343,6 +361,15 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
             if (filter.isEmpty()) throw TypeQLException.of(ErrorMessage.EMPTY_MATCH_FILTER);
         }
 
+        private Filtered(Filtered filtered, UnaryOperator<ThingConstraint.Value<?>> values) {
+            super(filtered, values);
+        }
+
+        @Override
+        public TypeQLMatch.Filtered substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new TypeQLMatch.Filtered(this, values);
+        }
+
         @Override
         public TypeQLMatch.Sorted sort(Sorting sorting) {
             return new TypeQLMatch.Sorted(this, sorting);
@@ -365,6 +392,15 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
             super(match.conjunction, match.modifiers.filter, sorting, match.modifiers.offset, match.modifiers.limit);
         }
 
+        private Sorted(Sorted sorted, UnaryOperator<ThingConstraint.Value<?>> values) {
+            super(sorted, values);
+        }
+
+        @Override
+        public TypeQLMatch.Sorted substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new TypeQLMatch.Sorted(this, values);
+        }
+
         public Offset offset(long offset) {
             return new Offset(this, offset);
         }
@@ -380,6 +416,15 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
             super(match.conjunction, match.modifiers.filter, match.modifiers.sorting, offset, match.modifiers.limit);
         }
 
+        private Offset(Offset offset, UnaryOperator<ThingConstraint.Value<?>> values) {
+            super(offset, values);
+        }
+
+        @Override
+        public Offset substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new Offset(this, values);
+        }
+
         public TypeQLMatch.Limited limit(long limit) {
             return new TypeQLMatch.Limited(this, limit);
         }
@@ -390,6 +435,15 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
         public Limited(TypeQLMatch match, long limit) {
             super(match.conjunction, match.modifiers.filter, match.modifiers.sorting, match.modifiers.offset, limit);
         }
+
+        private Limited(Limited limited, UnaryOperator<ThingConstraint.Value<?>> values) {
+            super(limited, values);
+        }
+
+        @Override
+        public TypeQLMatch.Limited substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new TypeQLMatch.Limited(this, values);
+        }
     }
 
     public static class Aggregate extends TypeQLQuery {
@@ -417,6 +471,18 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
             this.hash = Objects.hash(query, method, var);
         }
 
+        private Aggregate(Aggregate aggregate, UnaryOperator<ThingConstraint.Value<?>> values) {
+            this.query = aggregate.query.substitute(values);
+            this.method = aggregate.method;
+            this.var = aggregate.var;
+            this.hash = Objects.hash(query, method, var);
+        }
+
+        @Override
+        public Aggregate substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new Aggregate(this, values);
+        }
+
         @Override
         public TypeQLArg.QueryType type() {
             return TypeQLArg.QueryType.READ;
@@ -478,6 +544,17 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
             this.hash = Objects.hash(query, var);
         }
 
+        private Group(Group group, UnaryOperator<ThingConstraint.Value<?>> values) {
+            this.query = group.query.substitute(values);
+            this.var = group.var;
+            this.hash = Objects.hash(query, var);
+        }
+
+        @Override
+        public Group substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+            return new Group(this, values);
+        }
+
         @Override
         public TypeQLArg.QueryType type() {
             return TypeQLArg.QueryType.READ;
@@ -540,6 +617,18 @@ public class TypeQLMatch extends TypeQLQuery implements Aggregatable<TypeQLMatch
                 this.hash = Objects.hash(group, method, var);
             }
 
+            private Aggregate(Aggregate aggregate, UnaryOperator<ThingConstraint.Value<?>> values) {
+                this.group = aggregate.group.substitute(values);
+                this.method = aggregate.method;
+                this.var = aggregate.var;
+                this.hash = Objects.hash(group, method, var);
+            }
+
+            @Override
+            public Aggregate substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+                return new Aggregate(this, values);
+            }
+
             @Override
             public TypeQLArg.QueryType type() {
                 return TypeQLArg.QueryType.READ;
@@ -24,7 +24,9 @@ package com.vaticle.typeql.lang.query;
 import com.vaticle.typeql.lang.common.TypeQLArg;
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static com.vaticle.typedb.common.util.Objects.className;
@@ -38,6 +40,14 @@ public abstract class TypeQLQuery {
 
     public abstract TypeQLArg.QueryType type();
 
+    /**
+     * Returns a copy of this query with each of its value constraints replaced by the result of {@code values}, as
+     * by {@link com.vaticle.typeql.lang.pattern.Pattern#substitute(UnaryOperator)}. The patterns and statements in
+     * which nothing is replaced are shared with this query. Replacing values leaves the variables of the query
+     * unchanged, so the copy is not validated again.
+     */
+    public abstract TypeQLQuery substitute(UnaryOperator<ThingConstraint.Value<?>> values);
+
     public TypeQLDefine asDefine() {
         if (this instanceof TypeQLDefine) {
             return (TypeQLDefine) this;
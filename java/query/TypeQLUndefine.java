@@ -23,12 +23,23 @@ package com.vaticle.typeql.lang.query;
 
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.pattern.Definable;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 public class TypeQLUndefine extends TypeQLDefinable {
 
     public TypeQLUndefine(List<Definable> definables) {
         super(TypeQLToken.Command.UNDEFINE, definables);
     }
+
+    private TypeQLUndefine(TypeQLUndefine query, UnaryOperator<ThingConstraint.Value<?>> values) {
+        super(query, values);
+    }
+
+    @Override
+    public TypeQLUndefine substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        return new TypeQLUndefine(this, values);
+    }
 }
@@ -21,6 +21,7 @@
 
 package com.vaticle.typeql.lang.query;
 
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
@@ -28,6 +29,7 @@ import com.vaticle.typeql.lang.pattern.variable.Variable;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.NEW_LINE;
@@ -55,6 +57,13 @@ public class TypeQLUpdate extends TypeQLWritable {
         this.hash = Objects.hash(match, deleteVariables, insertVariables);
     }
 
+    private TypeQLUpdate(TypeQLUpdate update, UnaryOperator<ThingConstraint.Value<?>> values) {
+        super(update.match().substitute(values));
+        this.deleteVariables = substitute(update.deleteVariables, values);
+        this.insertVariables = substitute(update.insertVariables, values);
+        this.hash = Objects.hash(match, deleteVariables, insertVariables);
+    }
+
     public TypeQLMatch.Unfiltered match() {
         assert match != null;
         return match;
@@ -69,6 +78,11 @@ public class TypeQLUpdate extends TypeQLWritable {
         return insertVariables;
     }
 
+    @Override
+    public TypeQLUpdate substitute(UnaryOperator<ThingConstraint.Value<?>> values) {
+        return new TypeQLUpdate(this, values);
+    }
+
     public List<UnboundVariable> namedDeleteVariablesUnbound() {
         if (namedDeleteVariablesUnbound == null) {
             namedDeleteVariablesUnbound = deleteVariables.stream().flatMap(v -> concat(Stream.of(v), v.variables()))
@@ -24,6 +24,7 @@ package com.vaticle.typeql.lang.query;
 import com.vaticle.typeql.lang.common.TypeQLArg;
 import com.vaticle.typeql.lang.common.TypeQLToken;
 import com.vaticle.typeql.lang.common.exception.TypeQLException;
+import com.vaticle.typeql.lang.pattern.constraint.ThingConstraint;
 import com.vaticle.typeql.lang.pattern.variable.BoundVariable;
 import com.vaticle.typeql.lang.pattern.variable.ThingVariable;
 import com.vaticle.typeql.lang.pattern.variable.UnboundVariable;
@@ -32,6 +33,7 @@ import com.vaticle.typeql.lang.pattern.variable.Variable;
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 import static com.vaticle.typeql.lang.common.TypeQLToken.Char.NEW_LINE;
@@ -54,6 +56,11 @@ public abstract class TypeQLWritable extends TypeQLQuery {
         return TypeQLArg.QueryType.WRITE;
     }
 
+    static List<ThingVariable<?>> substitute(List<ThingVariable<?>> variables,
+                                             UnaryOperator<ThingConstraint.Value<?>> values) {
+        return variables.stream().<ThingVariable<?>>map(variable -> variable.substitute(values)).collect(toList());
+    }
+
     abstract static class InsertOrDelete extends TypeQLWritable {
 
         private List<UnboundVariable> namedVariablesUnbound;
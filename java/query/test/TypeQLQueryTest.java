@@ -23,21 +23,28 @@ package com.vaticle.typeql.lang.query.test;
 
 import com.vaticle.typeql.lang.TypeQL;
 import com.vaticle.typeql.lang.common.TypeQLArg;
+import com.vaticle.typeql.lang.pattern.VariableIndex;
 import com.vaticle.typeql.lang.query.TypeQLDefine;
 import com.vaticle.typeql.lang.query.TypeQLInsert;
 import com.vaticle.typeql.lang.query.TypeQLMatch;
 import com.vaticle.typeql.lang.query.TypeQLQuery;
 import org.junit.Test;
 
+import static com.vaticle.typedb.common.collection.Collections.list;
+import static com.vaticle.typedb.common.collection.Collections.set;
 import static com.vaticle.typeql.lang.TypeQL.and;
 import static com.vaticle.typeql.lang.TypeQL.lte;
 import static com.vaticle.typeql.lang.TypeQL.match;
+import static com.vaticle.typeql.lang.TypeQL.not;
 import static com.vaticle.typeql.lang.TypeQL.or;
 import static com.vaticle.typeql.lang.TypeQL.rel;
 import static com.vaticle.typeql.lang.TypeQL.rule;
 import static com.vaticle.typeql.lang.TypeQL.type;
 import static com.vaticle.typeql.lang.TypeQL.var;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 // TODO: This test should be split into one TypeQL query test class each
 public class TypeQLQueryTest {
@@ -156,6 +163,29 @@ public class TypeQLQueryTest {
         assertEquals(query, TypeQL.parseQuery(query).toString());
     }
 
+    @Test
+    public void testVariableIndexOfMatchQuery() {
+        TypeQLMatch query = match(
+                var("x").isa("movie").has("title", "Godfather"),
+                var().rel("x").rel("y"),
+                var("x").has("rating", var("r")),
+                or(var("y").isa("person"), and(var("y").isa("author"), var("z").rel("y").isa("authorship"))),
+                not(var("x").has("genre", var("w")))
+        );
+        VariableIndex index = query.conjunction().variableIndex();
+
+        assertEquals(list(var("x"), var("y"), var("r")), index.named());
+        assertTrue(index.isNamed(var("r")));
+        assertFalse(index.isNamed(var("z")));
+        assertEquals(2, index.statements(var("x")).size());
+        assertEquals(3, index.constraints(var("x")).size());
+        assertEquals(set(var("x"), var("y"), var("z"), var("w")), index.nested());
+        assertTrue(index.isLocalToNestedScope(var("z")));
+        assertTrue(index.isLocalToNestedScope(var("w")));
+        assertFalse(index.isLocalToNestedScope(var("y")));
+        assertEquals(query.conjunction().variables().collect(toList()), index.variables());
+    }
+
     private void assertSameStringRepresentation(TypeQLMatch query) {
         assertEquals(query.toString(), TypeQL.parseQuery(query.toString()).toString());
     }
@@ -23,6 +23,7 @@
 package com.vaticle.typeql.lang.test.behaviour.typeql;
 
 import com.vaticle.typeql.lang.TypeQL;
+import com.vaticle.typeql.lang.parser.Parser;
 import com.vaticle.typeql.lang.query.TypeQLDefine;
 import com.vaticle.typeql.lang.query.TypeQLDelete;
 import com.vaticle.typeql.lang.query.TypeQLInsert;
@@ -38,20 +39,48 @@ import static org.junit.Assert.assertEquals;
 
 public class TypeQLSteps {
 
+    private static final Parser antlrParser = new Parser();
+
+    private static final List<Parser> parsers = List.of(
+            new Parser(Parser.Options.defaults().fastPath(true)),
+            new Parser(Parser.Options.defaults().directBuild(true)),
+            new Parser(Parser.Options.defaults().asciiLexer(true)),
+            new Parser(Parser.Options.defaults().fastPath(true).directBuild(true).asciiLexer(true))
+    );
+
+    /**
+     * Parses the query through the public API, and with each of the hand-written fast path, direct building and
+     * the ASCII lexer enabled on its own and all together, and checks that every result is identical to the one
+     * produced by visiting the ANTLR parse tree.
+     */
+    private static <T extends TypeQLQuery> T parse(String query) {
+        T parsed = TypeQL.parseQuery(query);
+        TypeQLQuery expected = antlrParser.parseQueryEOF(query);
+        assertIdentical(expected, parsed);
+        for (Parser parser : parsers) assertIdentical(expected, parser.parseQueryEOF(query));
+        return parsed;
+    }
+
+    private static void assertIdentical(TypeQLQuery expected, TypeQLQuery parsed) {
+        assertEquals(expected.getClass(), parsed.getClass());
+        assertEquals(expected, parsed);
+        assertEquals(expected.toString(), parsed.toString());
+    }
+
     @Given("typeql define")
     @Given("reasoning schema")
     @Given("typeql define without commit")
     @Given("for each session, typeql define")
     public void typeql_define(String query) {
-        TypeQLDefine parsed = TypeQL.parseQuery(query);
-        assertEquals(parsed, TypeQL.parseQuery(parsed.toString()));
+        TypeQLDefine parsed = parse(query);
+        assertEquals(parsed, parse(parsed.toString()));
     }
 
     @Given("typeql undefine")
     @Given("typeql undefine without commit")
     public void typeql_undefine(String query) {
-        TypeQLUndefine parsed = TypeQL.parseQuery(query);
-        assertEquals(parsed, TypeQL.parseQuery(parsed.toString()));
+        TypeQLUndefine parsed = parse(query);
+        assertEquals(parsed, parse(parsed.toString()));
     }
 
     @Given("typeql insert")
@@ -60,15 +89,15 @@ public class TypeQLSteps {
     @Given("typeql insert without commit")
     @Given("for each session, typeql insert")
     public void typeql_insert(String query) {
-        TypeQLInsert parsed = TypeQL.parseQuery(query);
-        assertEquals(parsed, TypeQL.parseQuery(parsed.toString()));
+        TypeQLInsert parsed = parse(query);
+        assertEquals(parsed, parse(parsed.toString()));
         parsed.match().ifPresent(match -> match.conjunction().normalise());
     }
 
     @Given("typeql delete")
     public void typeql_delete(String query) {
-        TypeQLDelete parsed = TypeQL.parseQuery(query);
-        assertEquals(parsed, TypeQL.parseQuery(parsed.toString()));
+        TypeQLDelete parsed = parse(query);
+        assertEquals(parsed, parse(parsed.toString()));
         parsed.match().conjunction().normalise();
     }
 
@@ -80,8 +109,8 @@ public class TypeQLSteps {
     @Given("get answers of typeql match group aggregate")
     @Given("verify answer set is equivalent for query")
     public void typeql_match(String query) {
-        TypeQLQuery parsed = TypeQL.parseQuery(query);
-        assertEquals(parsed, TypeQL.parseQuery(parsed.toString()));
+        TypeQLQuery parsed = parse(query);
+        assertEquals(parsed, parse(parsed.toString()));
         if (parsed instanceof TypeQLMatch) {
             parsed.asMatch().conjunction().normalise();
         }
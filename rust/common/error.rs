@@ -141,4 +141,5 @@ error_messages! {
    INVALID_COUNT_VARIABLE_ARGUMENT = 38: "Aggregate COUNT does not accept a Variable.",
    ILLEGAL_GRAMMAR = 39: "Illegal grammar: '{}'",
    ILLEGAL_CHAR_IN_LABEL = 40: "'{}' is not a valid Type label. Type labels must start with a letter, and may contain only letters, numbers, '-' and '_'.",
+   UNBOUND_PARAMETER = 43: "Query parameter '{}' has not been bound to a value.",
 }
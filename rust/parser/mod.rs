@@ -36,7 +36,7 @@ use std::rc::Rc;
 use crate::{
     common::{
         date_time,
-        error::{ErrorMessage, ILLEGAL_GRAMMAR},
+        error::{ErrorMessage, ILLEGAL_GRAMMAR, UNBOUND_PARAMETER},
         string::{unescape_regex, unquote},
         token,
     },
@@ -605,6 +605,8 @@ fn visit_value(ctx: Rc<ValueContext>) -> ParserResult<Value> {
         Value::try_from(get_date(date)?.and_hms(0, 0, 0))
     } else if let Some(date_time) = ctx.DATETIME_() {
         Value::try_from(get_date_time(date_time)?)
+    } else if let Some(param) = ctx.PARAM_() {
+        Err(UNBOUND_PARAMETER.format(&[param.get_text().as_str()]))
     } else {
         unreachable!()
     }